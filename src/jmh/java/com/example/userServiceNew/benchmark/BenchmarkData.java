@@ -0,0 +1,135 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Общие данные для бенчмарков: пользователи и репозиторий в памяти без базы.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime CREATE_AT = LocalDateTime.of(2024, 1, 1, 10, 0);
+
+    private BenchmarkData() {
+    }
+
+    static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setNameUser("User " + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setAge(20 + id % 50);
+        user.setCreateAt(CREATE_AT);
+        user.setUpdateAt(CREATE_AT);
+        user.setVersion(0L);
+        return user;
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            users.add(user(i));
+        }
+        return users;
+    }
+
+    /** ObjectMapper с теми же модулями, что Spring Boot регистрирует по умолчанию. */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /** Строки в том виде, в каком их отдает JDBC: массив значений колонок. */
+    static List<Object[]> rows(int count) {
+        return users(count).stream()
+                .map(user -> new Object[]{user.getId(), user.getNameUser(), user.getEmail(),
+                        user.getAge(), user.getCreateAt(), user.getUpdateAt(), user.getVersion()})
+                .toList();
+    }
+
+    /** Гидратация сущности: объект User плюс копия состояния для dirty checking, как в Hibernate. */
+    static User hydrateEntity(Object[] row, List<Object[]> snapshots) {
+        User user = new User();
+        user.setId((Integer) row[0]);
+        user.setNameUser((String) row[1]);
+        user.setEmail((String) row[2]);
+        user.setAge((Integer) row[3]);
+        user.setCreateAt((LocalDateTime) row[4]);
+        user.setUpdateAt((LocalDateTime) row[5]);
+        user.setVersion((Long) row[6]);
+        snapshots.add(row.clone());
+        return user;
+    }
+
+    /** Конструкторное выражение JPQL: строка сразу становится UserDto. */
+    static UserDto projectDto(Object[] row) {
+        return new UserDto((Integer) row[0], (String) row[1], (String) row[2],
+                (Integer) row[3], (LocalDateTime) row[4], (LocalDateTime) row[5], (Long) row[6]);
+    }
+
+    /**
+     * UserRepository поверх строк в памяти. Методы, возвращающие сущности, каждый раз
+     * гидратируют их заново, DTO-методы каждый раз строят UserDto, поэтому бенчмарк
+     * видит аллокации на строку обоих путей. Остальные методы бросают UnsupportedOperationException.
+     */
+    @SuppressWarnings("unchecked")
+    static UserRepository inMemoryRepository(List<Object[]> rows) {
+        return (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAll" -> {
+                        List<Object[]> snapshots = new ArrayList<>(rows.size());
+                        List<User> users = new ArrayList<>(rows.size());
+                        for (Object[] row : rows) {
+                            users.add(hydrateEntity(row, snapshots));
+                        }
+                        yield users;
+                    }
+                    case "findAllDtos" -> {
+                        List<UserDto> users = new ArrayList<>(rows.size());
+                        for (Object[] row : rows) {
+                            users.add(projectDto(row));
+                        }
+                        yield users;
+                    }
+                    case "findDtoById" -> {
+                        int id = (Integer) args[0];
+                        yield id >= 1 && id <= rows.size() ? Optional.of(projectDto(rows.get(id - 1))) : Optional.empty();
+                    }
+                    case "findDtosAfter" -> {
+                        // id строк идут подряд с 1, поэтому WHERE id > after - это просто сдвиг
+                        int from = Math.max(0, Math.min((Integer) args[0], rows.size()));
+                        int to = Math.min(rows.size(), from + ((Pageable) args[1]).getPageSize());
+                        List<UserDto> users = new ArrayList<>(to - from);
+                        for (Object[] row : rows.subList(from, to)) {
+                            users.add(projectDto(row));
+                        }
+                        yield users;
+                    }
+                    case "findDtosByIdIn" -> {
+                        List<UserDto> users = new ArrayList<>();
+                        for (Integer id : (Collection<Integer>) args[0]) {
+                            if (id >= 1 && id <= rows.size()) {
+                                users.add(projectDto(rows.get(id - 1)));
+                            }
+                        }
+                        yield users;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryUserRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.coalescing.UserLookupCoalescer;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.controller.UserController;
+import com.example.userServiceNew.ingestion.UserIngestionService;
+import com.example.userServiceNew.service.UserCRUDService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Полный проход через DispatcherServlet: маршрутизация, вызов контроллера,
+ * сервис поверх репозитория в памяти и сериализация Jackson.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark {
+
+    @Param({"100"})
+    public int size;
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        UserCRUDService userService = new UserCRUDService(
+                BenchmarkData.inMemoryRepository(BenchmarkData.rows(size)),
+                new UserProperties(), new NoOpUserCache(),
+                new DefaultListableBeanFactory().getBeanProvider(UserLookupCoalescer.class));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new UserController(userService, null, objectMapper,
+                        new DefaultListableBeanFactory().getBeanProvider(UserIngestionService.class), null))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper))
+                .build();
+    }
+
+    @Benchmark
+    public MvcResult getUserById() throws Exception {
+        return mockMvc.perform(get("/users/1")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllUsers() throws Exception {
+        return mockMvc.perform(get("/users")).andReturn();
+    }
+
+    /** Десять пользователей одним мульти-get вместо десяти getUserById. */
+    @Benchmark
+    public MvcResult getUsersByIds() throws Exception {
+        return mockMvc.perform(get("/users").param("ids", "1,2,3,4,5,6,7,8,9,10")).andReturn();
+    }
+}
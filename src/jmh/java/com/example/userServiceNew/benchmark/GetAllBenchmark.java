@@ -0,0 +1,57 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.service.UserCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение всего списка поверх репозитория в памяти: измеряет маппинг и обертки без JDBC.
+ * entityPath - прежний путь (сущность + снимок, mapToDto, UserResponseDto на строку),
+ * projectionPath - проекция в UserDto и один конверт на список (getAll теперь отдает только первую страницу).
+ * Аллокации на строку: gc.alloc.rate.norm / size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetAllBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private UserRepository userRepository;
+
+    @Setup
+    public void setUp() {
+        userRepository = BenchmarkData.inMemoryRepository(BenchmarkData.rows(size));
+    }
+
+    @Benchmark
+    public List<UserResponseDto> entityPath() {
+        return userRepository.findAll().stream()
+                .map(user -> new UserResponseDto(0, UserCRUDService.mapToDto(user), null))
+                .toList();
+    }
+
+    @Benchmark
+    public UserPageDto projectionPath() {
+        return new UserPageDto(0, userRepository.findAllDtos(), null, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.SpringExampleApplication;
+import com.example.userServiceNew.bulk.UserCopyService;
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.service.ServiceResult;
+import com.example.userServiceNew.service.UserBatchService;
+import com.example.userServiceNew.service.UserCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Вставка пользователей в PostgreSQL из Testcontainers (нужен Docker): create() по одному
+ * и createAll() пачками по {@link #BULK_SIZE}, а также CSV через COPY пачками по {@link #COPY_SIZE}.
+ * Результат - вставок в секунду.
+ * allocationSize=1 - прежнее поведение, отдельный round-trip за id перед каждым INSERT;
+ * allocationSize=50 - id из блока pooled-lo, один nextval на 50 вставок.
+ * Запуск: mvn -Pjmh test-compile exec:exec -Djmh.args="InsertBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertBenchmark {
+
+    static final int BULK_SIZE = 500;
+    static final int COPY_SIZE = 10_000;
+
+    @Param({"1", "50"})
+    public int allocationSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+    private UserCRUDService userService;
+    private UserBatchService userBatchService;
+    private UserCopyService userCopyService;
+
+    @Setup
+    public void setUp() {
+        postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+        postgres.start();
+        context = new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl() + "&reWriteBatchedInserts=true",
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "spring.jpa.show-sql=false",
+                        "app.users.cache.enabled=false",
+                        "app.users.id.allocation-size=" + allocationSize)
+                .run();
+        userService = context.getBean(UserCRUDService.class);
+        userBatchService = context.getBean(UserBatchService.class);
+        userCopyService = context.getBean(UserCopyService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public ServiceResult<UserDto> createSingle() {
+        return userService.create(nextUser());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public BatchResponse createBulk() {
+        List<UserDto> users = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            users.add(nextUser());
+        }
+        return userBatchService.createAll(users.iterator());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COPY_SIZE)
+    public ServiceResult<CopyProgressDto> importCsv() {
+        StringBuilder csv = new StringBuilder("name_user,email,age\n");
+        for (int i = 0; i < COPY_SIZE; i++) {
+            long n = sequence.incrementAndGet();
+            csv.append("user").append(n).append(",user").append(n).append("@example.com,30\n");
+        }
+        byte[] body = csv.toString().getBytes(StandardCharsets.UTF_8);
+        return userCopyService.importCsv(new ByteArrayInputStream(body), false, (long) body.length);
+    }
+
+    private UserDto nextUser() {
+        long n = sequence.incrementAndGet();
+        UserDto userDto = new UserDto();
+        userDto.setNameUser("user" + n);
+        userDto.setEmail("user" + n + "@example.com");
+        userDto.setAge(30);
+        return userDto;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.service.UserCRUDService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private User user;
+    private UserDto userDto;
+
+    @Setup
+    public void setUp() {
+        user = BenchmarkData.user(1);
+        userDto = UserCRUDService.mapToDto(user);
+    }
+
+    @Benchmark
+    public UserDto mapToDto() {
+        return UserCRUDService.mapToDto(user);
+    }
+
+    @Benchmark
+    public User mapToEntity() {
+        return UserCRUDService.mapToEntity(userDto);
+    }
+}
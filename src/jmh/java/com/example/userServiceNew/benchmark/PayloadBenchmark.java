@@ -0,0 +1,77 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.service.UserCRUDService;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ответ GET /users в JSON, CBOR и Smile, без сжатия и с gzip, как его отдает Tomcat.
+ * Время - CPU на сериализацию (и сжатие); размер ответа печатается в лог при старте каждого трайла.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private UserPageDto page;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<UserDto> users = BenchmarkData.users(size).stream()
+                .map(UserCRUDService::mapToDto)
+                .toList();
+        page = new UserPageDto(0, users, null, null);
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            default -> throw new IllegalArgumentException(format);
+        };
+        writer = builder.build().writer();
+        System.out.printf("%n%s gzip=%s size=%d: %d bytes%n", format, gzip, size, serialize().length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        if (!gzip) {
+            return writer.writeValueAsBytes(page);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            writer.writeValue(gzipOut, page);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.userServiceNew.benchmark;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.service.UserCRUDService;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int size;
+
+    private List<UserResponseDto> responses;
+    private UserPageDto page;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        List<UserDto> users = BenchmarkData.users(size).stream()
+                .map(UserCRUDService::mapToDto)
+                .toList();
+        responses = users.stream()
+                .map(userDto -> new UserResponseDto(0, userDto, null))
+                .toList();
+        page = new UserPageDto(0, users, null, null);
+        writer = BenchmarkData.objectMapper().writer();
+    }
+
+    /** Прежний формат GET /users: конверт на каждую строку. */
+    @Benchmark
+    public byte[] serializeUserResponseList() throws Exception {
+        return writer.writeValueAsBytes(responses);
+    }
+
+    /** Текущий формат GET /users: один конверт на список. */
+    @Benchmark
+    public byte[] serializeUserListEnvelope() throws Exception {
+        return writer.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.userServiceNew.loadtest;
+
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время до первого ответа и RSS при старте сервиса в вариантах jvm, cds, aot и native.
+ * Каждый вариант запускается отдельным процессом startup.runs раз против PostgreSQL из Testcontainers
+ * (нужен Docker); время - от запуска процесса до первого 200 на GET /users?limit=1,
+ * RSS процесса снимается сразу после этого ответа. В отчет идут медианы.
+ * <p>
+ * Артефакты собираются заранее, варианты без артефактов пропускаются:
+ * jvm - mvn package; cds - mvn -Pcds package; aot - mvn -Paot package; native - mvn -Pnative native:compile.
+ * Запуск: mvn -Pjmh test-compile exec:exec@startup -Dstartup.args="-Dstartup.variants=jvm,cds"
+ * Результат - target/startup-result.json.
+ */
+public class StartupBenchmark {
+
+    private static final Duration START_TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        Path target = Path.of(System.getProperty("startup.target", "target"));
+        String finalName = System.getProperty("startup.final-name", "SpringExample-1.0-SNAPSHOT");
+        int runs = Integer.getInteger("startup.runs", 5);
+        List<String> variants = List.of(System.getProperty("startup.variants", "jvm,cds,aot,native").split(","));
+
+        Path jar = target.resolve(finalName + ".jar");
+        Path cdsJar = target.resolve("cds").resolve(finalName + "-cds.jar");
+        Path cdsArchive = target.resolve("cds").resolve("application.jsa");
+        Path nativeImage = target.resolve("user-service");
+        Map<String, List<String>> commands = new LinkedHashMap<>();
+        commands.put("jvm", List.of("java", "-jar", jar.toString()));
+        commands.put("cds", List.of("java", "-XX:SharedArchiveFile=" + cdsArchive, "-Xshare:auto",
+                "-jar", cdsJar.toString()));
+        commands.put("aot", List.of("java", "-Dspring.aot.enabled=true", "-jar", jar.toString()));
+        commands.put("native", List.of(nativeImage.toString()));
+        Map<String, Path> artifacts = Map.of("jvm", jar, "cds", cdsArchive, "aot", jar, "native", nativeImage);
+
+        StringJoiner results = new StringJoiner(",", "[", "]");
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")) {
+            postgres.start();
+            for (String variant : variants) {
+                if (!commands.containsKey(variant) || !Files.exists(artifacts.get(variant))) {
+                    System.out.printf("%s: skipped, %s not found%n", variant, artifacts.get(variant));
+                    continue;
+                }
+                long[] millis = new long[runs];
+                long[] rssKb = new long[runs];
+                for (int run = 0; run < runs; run++) {
+                    long[] sample = startOnce(commands.get(variant), postgres, target.resolve("startup-" + variant + ".log"));
+                    millis[run] = sample[0];
+                    rssKb[run] = sample[1];
+                }
+                String json = String.format(Locale.ROOT,
+                        "{\"variant\":\"%s\",\"runs\":%d,\"timeToFirstRequestMillis\":%d,\"rssMegabytes\":%.1f}",
+                        variant, runs, median(millis), median(rssKb) / 1024.0);
+                System.out.println(json);
+                results.add(json);
+            }
+        }
+        Path output = target.resolve("startup-result.json");
+        Files.writeString(output, results.toString());
+        System.exit(0);
+    }
+
+    /** @return время до первого ответа в мс и RSS в КБ */
+    private static long[] startOnce(List<String> command, PostgreSQLContainer<?> postgres, Path log)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> fullCommand = new ArrayList<>(command);
+        fullCommand.addAll(List.of(
+                "--server.port=" + port,
+                "--spring.datasource.url=" + postgres.getJdbcUrl(),
+                "--spring.datasource.username=" + postgres.getUsername(),
+                "--spring.datasource.password=" + postgres.getPassword()));
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofMillis(200)).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users?limit=1"))
+                .timeout(Duration.ofSeconds(5))
+                .build();
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(fullCommand)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            long deadline = started + START_TIMEOUT.toNanos();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Process exited with " + process.exitValue() + ", see " + log);
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("No response in " + START_TIMEOUT + ", see " + log);
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // порт еще не слушается
+                }
+                Thread.sleep(10);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            return new long[]{millis, rssKb(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    /** VmRSS из /proc (Linux), иначе ps. */
+    private static long rssKb(long pid) throws IOException, InterruptedException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        if (Files.exists(status)) {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("\\D", ""));
+                }
+            }
+        }
+        Process ps = new ProcessBuilder("ps", "-o", "rss=", "-p", Long.toString(pid)).start();
+        String rss = new String(ps.getInputStream().readAllBytes()).strip();
+        ps.waitFor();
+        return rss.isEmpty() ? 0 : Long.parseLong(rss);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.userServiceNew.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный тест GET /users/{id} против запущенного сервиса.
+ * Сравнение режимов: запустить сервис с профилем loadtest (и virtual-threads для второго прогона),
+ * затем mvn -Pjmh test-compile exec:exec@loadtest -Dloadtest.args="-Dloadtest.label=virtual".
+ * Пропускная способность и перцентили пишутся в target/loadtest-&lt;label&gt;.json.
+ * <p>
+ * Параметры (system properties): loadtest.url, loadtest.concurrency,
+ * loadtest.duration (секунды), loadtest.max-id, loadtest.label.
+ */
+public class UserApiLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("loadtest.url", "http://localhost:8080");
+        int concurrency = Integer.getInteger("loadtest.concurrency", 400);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+        int maxId = Integer.getInteger("loadtest.max-id", 1000);
+        String label = System.getProperty("loadtest.label", "default");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(4))
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        Future<?>[] futures = new Future<?>[concurrency];
+        long[][] latencies = new long[concurrency][];
+        int[] counts = new int[concurrency];
+        int[] errors = new int[concurrency];
+        for (int w = 0; w < concurrency; w++) {
+            int worker = w;
+            futures[w] = workers.submit(() -> {
+                long[] samples = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    int id = ThreadLocalRandom.current().nextInt(1, maxId + 1);
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/users/" + id))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 500) {
+                            errors[worker]++;
+                        }
+                    } catch (IOException e) {
+                        errors[worker]++;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    if (count == samples.length) {
+                        samples = Arrays.copyOf(samples, count * 2);
+                    }
+                    samples[count++] = System.nanoTime() - start;
+                }
+                latencies[worker] = samples;
+                counts[worker] = count;
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        workers.shutdown();
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int w = 0; w < concurrency; w++) {
+            System.arraycopy(latencies[w], 0, all, offset, counts[w]);
+            offset += counts[w];
+        }
+        Arrays.sort(all);
+
+        String json = String.format(Locale.ROOT,
+                "{\"label\":\"%s\",\"concurrency\":%d,\"durationSeconds\":%d,\"requests\":%d,\"errors\":%d,"
+                        + "\"throughputPerSecond\":%.1f,\"p50Millis\":%.3f,\"p99Millis\":%.3f,\"maxMillis\":%.3f}",
+                label, concurrency, durationSeconds, total, Arrays.stream(errors).sum(),
+                total / (double) durationSeconds, percentile(all, 0.50), percentile(all, 0.99),
+                total == 0 ? 0.0 : all[total - 1] / 1_000_000.0);
+        Path output = Path.of("target", "loadtest-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+        System.out.println(json);
+        System.exit(0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
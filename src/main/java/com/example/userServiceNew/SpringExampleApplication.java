@@ -1,10 +1,15 @@
 package com.example.userServiceNew;
 
+import com.example.userServiceNew.startup.UserRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
+@ImportRuntimeHints(UserRuntimeHints.class)
 public class SpringExampleApplication {
     public static void main(String[] args) {
         SpringApplication.run(SpringExampleApplication.class,args);
@@ -0,0 +1,19 @@
+package com.example.userServiceNew.bulk;
+
+/** Формат данных COPY: текстовый CSV или бинарный формат PostgreSQL (PGCOPY). */
+public enum CopyFormat {
+
+    CSV("csv"),
+    BINARY("binary");
+
+    private final String option;
+
+    CopyFormat(String option) {
+        this.option = option;
+    }
+
+    /** Значение опции FORMAT в COPY ... WITH (FORMAT ...). */
+    public String getOption() {
+        return option;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.userServiceNew.bulk;
+
+import com.example.userServiceNew.dto.CopyProgressDto;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчик одной COPY-операции: байты считаются обертками потоков по мере чтения тела
+ * или записи ответа, строки - по завершении, из результата COPY.
+ */
+class CopyProgress {
+
+    private final String id = UUID.randomUUID().toString();
+    private final String operation;
+    private final Long totalBytes;
+    private final long startedNanos = System.nanoTime();
+    private final AtomicLong bytes = new AtomicLong();
+    private volatile Long rows;
+
+    CopyProgress(String operation, Long totalBytes) {
+        this.operation = operation;
+        this.totalBytes = totalBytes;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    void finish(long rows) {
+        this.rows = rows;
+    }
+
+    long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    CopyProgressDto toDto() {
+        long elapsed = elapsedMillis();
+        Long rowsPerSecond = rows == null ? null : rows * 1000 / Math.max(1, elapsed);
+        return new CopyProgressDto(0, id, operation, rows, bytes.get(), totalBytes, elapsed, rowsPerSecond, null);
+    }
+
+    InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) {
+                    bytes.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                int n = super.read(buffer, off, len);
+                if (n > 0) {
+                    bytes.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    OutputStream track(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytes.incrementAndGet();
+            }
+
+            // FilterOutputStream по умолчанию пишет массив по одному байту
+            @Override
+            public void write(byte[] buffer, int off, int len) throws IOException {
+                out.write(buffer, off, len);
+                bytes.addAndGet(len);
+            }
+        };
+    }
+}
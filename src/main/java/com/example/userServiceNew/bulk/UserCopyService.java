@@ -0,0 +1,282 @@
+package com.example.userServiceNew.bulk;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.service.ServiceResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Импорт и выгрузка пользователей через COPY PostgreSQL, минуя Hibernate и сущности User.
+ * Тело HTTP-запроса идет в COPY ... FROM STDIN, результат COPY ... TO STDOUT - в тело ответа,
+ * через буферы app.users.copy.buffer-size, поэтому память не зависит от числа строк.
+ * <p>
+ * Без upsert строки вставляются прямо в users, и совпадение id дает 409. С upsert строки
+ * сначала попадают во временную таблицу users_import, а затем переносятся одним MERGE:
+ * существующие id обновляются, остальные вставляются. MERGE, а не INSERT ... ON CONFLICT (id),
+ * потому что в секционированной таблице первичный ключ (id, create_at) и конфликта по одному id нет.
+ * MERGE появился в PostgreSQL 15, поэтому upsert требует PostgreSQL 15+; импорт без upsert и выгрузка
+ * работают и на более ранних версиях.
+ * <p>
+ * Если импорт передает id явно, последовательность сдвигается за максимальный id; блоки id,
+ * уже выданные другим экземплярам до импорта, с явными id могут пересечься - за это отвечает источник данных.
+ */
+@Slf4j
+@Service
+public class UserCopyService {
+
+    /** Колонки users, которые можно импортировать и которые выгружаются, в порядке выгрузки. */
+    public static final List<String> COLUMNS = List.of("id", "name_user", "email", "age", "create_at", "update_at", "version");
+
+    static final String ROWS = "users.copy.rows";
+
+    /** Колонки, которые MERGE обновляет у существующих пользователей; id, create_at и version - служебные. */
+    private static final List<String> UPDATABLE = List.of("name_user", "email", "age");
+
+    private static final String CREATE_STAGING = "create temp table users_import ("
+            + "id integer, name_user varchar(255), email varchar(255), age integer, "
+            + "create_at timestamp(6), update_at timestamp(6), version bigint) on commit drop";
+
+    private static final String ADVANCE_SEQUENCE = "select setval('users_id_seq', "
+            + "greatest((select max(id) from users), (select last_value from users_id_seq)))";
+
+    /** Строка заголовка CSV длиннее этого - явно не список колонок users. */
+    private static final int MAX_HEADER_BYTES = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final UserCache userCache;
+    private final int bufferSize;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CopyProgress> running = new ConcurrentHashMap<>();
+
+    public UserCopyService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                           UserCache userCache, UserProperties userProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        // readOnly транзакция при включенной маршрутизации читает с реплики
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.userCache = userCache;
+        this.bufferSize = (int) userProperties.getCopy().getBufferSize().toBytes();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Импорт CSV: первая строка - заголовок с именами колонок из {@link #COLUMNS},
+     * пропущенные колонки получают значения по умолчанию.
+     *
+     * @param totalBytes Content-Length тела, если известен, - для прогресса
+     */
+    public ServiceResult<CopyProgressDto> importCsv(InputStream body, boolean upsert, Long totalBytes) {
+        CopyProgress progress = new CopyProgress(upsert ? "upsert-csv" : "import-csv", totalBytes);
+        InputStream in = new BufferedInputStream(progress.track(body), bufferSize);
+        List<String> columns;
+        try {
+            columns = parseHeader(readHeader(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return copyIn(in, CopyFormat.CSV, columns, upsert, progress);
+    }
+
+    /**
+     * Импорт бинарного формата COPY (PGCOPY). Колонки потока перечисляются явно,
+     * по умолчанию - все {@link #COLUMNS}.
+     */
+    public ServiceResult<CopyProgressDto> importBinary(InputStream body, List<String> columns, boolean upsert,
+                                                       Long totalBytes) {
+        CopyProgress progress = new CopyProgress(upsert ? "upsert-binary" : "import-binary", totalBytes);
+        InputStream in = new BufferedInputStream(progress.track(body), bufferSize);
+        List<String> normalized = columns == null || columns.isEmpty() ? COLUMNS : columns.stream()
+                .map(UserCopyService::normalize)
+                .toList();
+        return copyIn(in, CopyFormat.BINARY, normalized, upsert, progress);
+    }
+
+    /** Выгружает всех пользователей в out: CSV с заголовком или PGCOPY, колонки {@link #COLUMNS}. */
+    public CopyProgressDto export(CopyFormat format, OutputStream out) {
+        CopyProgress progress = new CopyProgress("export-" + format.getOption(), null);
+        // COPY (SELECT ...), а не COPY users: секционированную таблицу напрямую выгрузить нельзя
+        String sql = "copy (select " + String.join(", ", COLUMNS) + " from users) to stdout with (format "
+                + format.getOption() + (format == CopyFormat.CSV ? ", header true)" : ")");
+        return track(progress, () -> readOnlyTransactionTemplate.execute(status -> copy(copyManager -> {
+            // BufferedOutputStream сам передает большие массивы мимо буфера, поэтому он снаружи счетчика
+            OutputStream buffered = new BufferedOutputStream(progress.track(out), bufferSize);
+            long rows = copyManager.copyOut(sql, buffered);
+            buffered.flush();
+            return rows;
+        })));
+    }
+
+    /** Импорты и выгрузки, которые выполняются сейчас. */
+    public List<CopyProgressDto> getProgress() {
+        return running.values().stream().map(CopyProgress::toDto).toList();
+    }
+
+    private ServiceResult<CopyProgressDto> copyIn(InputStream in, CopyFormat format, List<String> columns,
+                                                  boolean upsert, CopyProgress progress) {
+        List<String> errors = validateColumns(columns);
+        if (!errors.isEmpty()) {
+            return ServiceResult.invalid(errors);
+        }
+        String columnList = String.join(", ", columns);
+        String table = upsert ? "users_import" : "users";
+        String copySql = "copy " + table + " (" + columnList + ") from stdin with (format " + format.getOption() + ")";
+        try {
+            CopyProgressDto result = track(progress, () -> transactionTemplate.execute(status -> {
+                if (upsert) {
+                    jdbcTemplate.execute(CREATE_STAGING);
+                }
+                long copied = copy(copyManager -> copyManager.copyIn(copySql, in, bufferSize));
+                long rows = upsert ? jdbcTemplate.update(mergeSql(columns)) : copied;
+                if (columns.contains("id")) {
+                    jdbcTemplate.queryForObject(ADVANCE_SEQUENCE, Long.class);
+                }
+                return rows;
+            }));
+            userCache.invalidateAll();
+            return ServiceResult.ok(result);
+        } catch (DataIntegrityViolationException e) {
+            // класс 22 - ошибки данных: неверный CSV, не то число колонок, значение не того типа
+            if (e.getMostSpecificCause() instanceof SQLException sqlException
+                    && sqlException.getSQLState() != null && sqlException.getSQLState().startsWith("22")) {
+                return ServiceResult.invalid(List.of(sqlException.getMessage()));
+            }
+            throw e;
+        }
+    }
+
+    private CopyProgressDto track(CopyProgress progress, RowsCopy copy) {
+        running.put(progress.getId(), progress);
+        try {
+            Long rows = copy.run();
+            progress.finish(rows == null ? 0 : rows);
+        } finally {
+            running.remove(progress.getId());
+        }
+        CopyProgressDto result = progress.toDto();
+        Counter.builder(ROWS)
+                .description("Строки, прошедшие через COPY")
+                .tag("operation", progress.getOperation())
+                .register(meterRegistry)
+                .increment(result.getRows());
+        log.info("{}: {} rows, {} bytes in {} ms ({} rows/s)", progress.getOperation(), result.getRows(),
+                result.getBytes(), result.getElapsedMillis(), result.getRowsPerSecond());
+        return result;
+    }
+
+    /** COPY через CopyManager соединения текущей транзакции. */
+    private long copy(CopyAction action) {
+        return jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                return action.copy(copyManager);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface CopyAction {
+        long copy(CopyManager copyManager) throws SQLException, IOException;
+    }
+
+    @FunctionalInterface
+    private interface RowsCopy {
+        Long run();
+    }
+
+    /**
+     * MERGE из users_import: у существующих id меняются только импортированные name_user, email, age,
+     * как при PATCH; новые пользователи получают id из последовательности, если он не передан.
+     * У users_import нет значений по умолчанию, поэтому NOT NULL колонки users заполняются через coalesce.
+     */
+    static String mergeSql(Collection<String> columns) {
+        String updates = UPDATABLE.stream()
+                .filter(columns::contains)
+                .map(column -> column + " = s." + column + ", ")
+                .collect(Collectors.joining());
+        return "merge into users u using users_import s on u.id = s.id "
+                + "when matched then update set " + updates + "version = u.version + 1, update_at = localtimestamp "
+                + "when not matched then insert (id, name_user, email, age, create_at, update_at, version) "
+                + "values (coalesce(s.id, nextval('users_id_seq')), s.name_user, s.email, s.age, "
+                + "coalesce(s.create_at, localtimestamp), coalesce(s.update_at, localtimestamp), coalesce(s.version, 0))";
+    }
+
+    static List<String> validateColumns(List<String> columns) {
+        List<String> errors = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (String column : columns) {
+            if (!COLUMNS.contains(column)) {
+                errors.add("Неизвестная колонка: " + column);
+            } else if (!seen.add(column)) {
+                errors.add("Колонка повторяется: " + column);
+            }
+        }
+        if (columns.isEmpty()) {
+            errors.add("Нужен заголовок с колонками " + String.join(",", COLUMNS));
+        }
+        return errors;
+    }
+
+    static List<String> parseHeader(String header) {
+        if (header.isBlank()) {
+            return List.of();
+        }
+        List<String> columns = new ArrayList<>();
+        for (String column : header.split(",", -1)) {
+            columns.add(normalize(column.replace("\"", "")));
+        }
+        return columns;
+    }
+
+    private static String normalize(String column) {
+        return column.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /** Читает первую строку по байту, чтобы остаток потока целиком ушел в COPY. */
+    private static String readHeader(InputStream in) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (header.size() >= MAX_HEADER_BYTES) {
+                return "";
+            }
+            if (b != '\r') {
+                header.write(b);
+            }
+        }
+        return header.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.UserDto;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру кэш с TTL. Caffeine вытесняет записи по W-TinyLFU
+ * и блокирует параллельные загрузки одного ключа, что защищает базу от stampede.
+ * <p>
+ * Загрузка выполняется на loadExecutor. По умолчанию это вызывающий поток; в режиме
+ * виртуальных потоков загрузка уходит в отдельный виртуальный поток, чтобы запрос
+ * к базе не выполнялся под монитором ConcurrentHashMap.compute и не пиннил carrier-поток.
+ * <p>
+ * Рядом с кэшем ведется индекс email -> id по закэшированным пользователям. Записи индекса
+ * удаляются вместе с пользователем, а перед ответом сверяются с кэшем, так что устаревшая
+ * запись индекса не дает ложного совпадения.
+ */
+public class CaffeineUserCache implements UserCache {
+
+    private final AsyncCache<Integer, UserDto> cache;
+    private final Executor loadExecutor;
+    private final ConcurrentMap<String, Integer> emailOwners = new ConcurrentHashMap<>();
+
+    public CaffeineUserCache(UserProperties.Cache properties) {
+        this(properties, Runnable::run);
+    }
+
+    public CaffeineUserCache(UserProperties.Cache properties, Executor loadExecutor) {
+        this.loadExecutor = loadExecutor;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .removalListener((Integer id, UserDto userDto, RemovalCause cause) -> {
+                    if (id != null && userDto != null && userDto.getEmail() != null) {
+                        emailOwners.remove(userDto.getEmail(), id);
+                    }
+                })
+                .buildAsync();
+    }
+
+    @Override
+    public UserDto get(Integer id, Function<Integer, UserDto> loader) {
+        try {
+            UserDto userDto = cache.get(id, (key, executor) ->
+                            CompletableFuture.supplyAsync(() -> loader.apply(key), loadExecutor))
+                    .join();
+            index(userDto);
+            return userDto;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /** loader не блокируется, поэтому выполняется прямо в compute, без loadExecutor. */
+    @Override
+    public CompletableFuture<UserDto> getAsync(Integer id, Function<Integer, CompletableFuture<UserDto>> loader) {
+        return cache.get(id, (key, executor) -> loader.apply(key)).thenApply(userDto -> {
+            index(userDto);
+            return userDto;
+        });
+    }
+
+    @Override
+    public UserDto getIfPresent(Integer id) {
+        CompletableFuture<UserDto> future = cache.getIfPresent(id);
+        // загрузка еще идет или упала - ответ из кэша не ждем
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    /** Загрузки, которые еще идут, пропускаются так же, как в getIfPresent. */
+    @Override
+    public Map<Integer, UserDto> getAllPresent(Collection<Integer> ids) {
+        return cache.synchronous().getAllPresent(ids);
+    }
+
+    @Override
+    public void put(UserDto userDto) {
+        cache.put(userDto.getId(), CompletableFuture.completedFuture(userDto));
+        index(userDto);
+    }
+
+    @Override
+    public Integer emailOwner(String email) {
+        Integer id = emailOwners.get(email);
+        if (id == null) {
+            return null;
+        }
+        // asMap().get не считается попаданием или промахом в статистике кэша
+        CompletableFuture<UserDto> future = cache.asMap().get(id);
+        UserDto cached = future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        if (cached == null || !email.equals(cached.getEmail())) {
+            emailOwners.remove(email, id);
+            return null;
+        }
+        return id;
+    }
+
+    @Override
+    public void invalidate(Integer id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @Override
+    public CacheStatsDto stats() {
+        CacheStats stats = cache.synchronous().stats();
+        return new CacheStatsDto(true, cache.synchronous().estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.loadCount(), stats.evictionCount(), stats.hitRate());
+    }
+
+    private void index(UserDto userDto) {
+        if (userDto != null && userDto.getEmail() != null) {
+            emailOwners.put(userDto.getEmail(), userDto.getId());
+        }
+    }
+
+    public Cache<Integer, UserDto> getNativeCache() {
+        return cache.synchronous();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.UserDto;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+public class NoOpUserCache implements UserCache {
+
+    @Override
+    public UserDto get(Integer id, Function<Integer, UserDto> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public CompletableFuture<UserDto> getAsync(Integer id, Function<Integer, CompletableFuture<UserDto>> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public UserDto getIfPresent(Integer id) {
+        return null;
+    }
+
+    @Override
+    public Map<Integer, UserDto> getAllPresent(Collection<Integer> ids) {
+        return Map.of();
+    }
+
+    @Override
+    public void put(UserDto userDto) {
+    }
+
+    @Override
+    public Integer emailOwner(String email) {
+        return null;
+    }
+
+    @Override
+    public void invalidate(Integer id) {
+    }
+
+    @Override
+    public void invalidateAll() {
+    }
+
+    @Override
+    public CacheStatsDto stats() {
+        return new CacheStatsDto(false, 0L, 0L, 0L, 0L, 0L, 0.0);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.UserDto;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей перед UserRepository.findById.
+ * Реализация выбирается свойством app.users.cache.enabled.
+ */
+public interface UserCache {
+
+    /**
+     * Возвращает пользователя из кэша или загружает его через loader.
+     * Одновременные промахи по одному id вызывают loader один раз.
+     * Если loader вернул null, ничего не кэшируется и возвращается null.
+     */
+    UserDto get(Integer id, Function<Integer, UserDto> loader);
+
+    /**
+     * Как get, но loader только запускает загрузку и сразу возвращает ее CompletableFuture.
+     * Кэш регистрирует future под своей блокировкой, а ждать результат вызывающий код может уже вне ее.
+     * Future, завершенный с null или с ошибкой, не кэшируется.
+     */
+    CompletableFuture<UserDto> getAsync(Integer id, Function<Integer, CompletableFuture<UserDto>> loader);
+
+    /** Пользователь, если он уже в кэше; загрузки не вызывает. */
+    UserDto getIfPresent(Integer id);
+
+    /** Закэшированные пользователи из ids по id; отсутствующих в кэше в ответе нет, загрузки не вызывает. */
+    Map<Integer, UserDto> getAllPresent(Collection<Integer> ids);
+
+    void put(UserDto userDto);
+
+    /**
+     * id закэшированного пользователя с таким email или null, если такой в кэше нет.
+     * Базу не трогает: ответ годится только для быстрого отказа, null не значит, что email свободен.
+     */
+    Integer emailOwner(String email);
+
+    void invalidate(Integer id);
+
+    void invalidateAll();
+
+    CacheStatsDto stats();
+}
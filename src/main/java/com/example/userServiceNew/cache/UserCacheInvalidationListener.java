@@ -0,0 +1,159 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.config.UserProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Держит соединение с LISTEN users_changed и сбрасывает в локальном кэше пользователей,
+ * измененных любым экземпляром сервиса (уведомления шлют триггеры из Flyway-колбэка
+ * afterMigrate__users_change_notify.sql).
+ * <p>
+ * Уведомления, пришедшие за один опрос, применяются пачкой. Пока соединения нет, уведомления
+ * теряются, поэтому после каждого (пере)подключения кэш сбрасывается целиком: LISTEN уже выполнен,
+ * и все, что изменится после сброса, снова придет уведомлением.
+ * <p>
+ * Соединение берется из основного пула вне транзакции, то есть с primary, и занимает его все время работы.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.users.cache.cluster", name = "enabled", havingValue = "true")
+public class UserCacheInvalidationListener implements SmartLifecycle {
+
+    static final String CHANNEL = "users_changed";
+    static final String INVALIDATED = "users.cache.cluster.invalidations";
+    static final String RESYNCS = "users.cache.cluster.resyncs";
+
+    private final DataSource dataSource;
+    private final UserCache userCache;
+    private final UserProperties.CacheCluster properties;
+    private final Counter invalidated;
+    private final Counter resyncs;
+    private volatile Thread thread;
+
+    public UserCacheInvalidationListener(DataSource dataSource, UserCache userCache, UserProperties userProperties,
+                                         MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.userCache = userCache;
+        this.properties = userProperties.getCache().getCluster();
+        this.invalidated = Counter.builder(INVALIDATED)
+                .description("Пользователи, сброшенные из кэша по уведомлениям")
+                .register(meterRegistry);
+        this.resyncs = Counter.builder(RESYNCS)
+                .description("Полные сбросы кэша: после подключения LISTEN и по '*'")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Применяет полезную нагрузку уведомлений: id через запятую или '*' - сбросить все.
+     * Повторы id внутри пачки сбрасываются один раз.
+     */
+    void apply(Collection<String> payloads) {
+        Set<Integer> ids = new HashSet<>();
+        for (String payload : payloads) {
+            if ("*".equals(payload)) {
+                userCache.invalidateAll();
+                resyncs.increment();
+                return;
+            }
+            Stream.of(payload.split(","))
+                    .filter(id -> !id.isBlank())
+                    .map(id -> Integer.valueOf(id.strip()))
+                    .forEach(ids::add);
+        }
+        ids.forEach(userCache::invalidate);
+        invalidated.increment(ids.size());
+    }
+
+    private void run() {
+        while (thread == Thread.currentThread()) {
+            try (Connection listening = dataSource.getConnection()) {
+                listen(listening);
+            } catch (SQLException | RuntimeException e) {
+                if (thread != Thread.currentThread()) {
+                    return;
+                }
+                log.warn("Users cache LISTEN connection lost, reconnecting in {}", properties.getReconnectDelay(), e);
+                try {
+                    Thread.sleep(properties.getReconnectDelay().toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void listen(Connection listening) throws SQLException {
+        try (Statement statement = listening.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        userCache.invalidateAll();
+        resyncs.increment();
+        log.info("Listening for {} notifications", CHANNEL);
+        PGConnection pgConnection = listening.unwrap(PGConnection.class);
+        int pollTimeout = (int) properties.getPollTimeout().toMillis();
+        try {
+            while (thread == Thread.currentThread()) {
+                PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                if (notifications != null && notifications.length > 0) {
+                    apply(Stream.of(notifications).map(PGNotification::getParameter).toList());
+                } else if (!listening.isValid(pollTimeout / 1000 + 1)) {
+                    // getNotifications не замечает оборванный без FIN сокет, isValid ходит в базу
+                    throw new SQLException("LISTEN connection is no longer valid", "08006");
+                }
+            }
+        } finally {
+            unlisten(listening);
+        }
+    }
+
+    /**
+     * Соединение возвращается в пул: без UNLISTEN следующий владелец копил бы уведомления в памяти драйвера.
+     * На оборванном соединении UNLISTEN падает с SQLState 08, и пул выбрасывает такое соединение.
+     */
+    private static void unlisten(Connection listening) {
+        try (Statement statement = listening.createStatement()) {
+            statement.execute("UNLISTEN *");
+        } catch (SQLException e) {
+            log.debug("UNLISTEN failed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        Thread listener = new Thread(this::run, "users-cache-listener");
+        listener.setDaemon(true);
+        thread = listener;
+        listener.start();
+    }
+
+    /** Поток замечает остановку не позже чем через poll-timeout; соединение закроет пул при остановке контекста. */
+    @Override
+    public void stop() {
+        Thread listener = thread;
+        thread = null;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+}
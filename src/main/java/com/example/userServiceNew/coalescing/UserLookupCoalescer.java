@@ -0,0 +1,201 @@
+package com.example.userServiceNew.coalescing;
+
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.routing.ReplicaRoutingContext;
+import com.example.userServiceNew.routing.ReplicaRoutingProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Склеивает одновременные getById по разным id в один SELECT ... WHERE id IN (...).
+ * <p>
+ * Отдельного потока нет: первый запрос открывает пачку, ждет остальных до max-wait
+ * (или пока не наберется max-batch-size id) и выполняет запрос сам, остальные ждут его результат.
+ * Если других getById в работе нет, первый запрос не ждет, и одиночное чтение не замедляется.
+ * Пачки для чтения с primary и с реплики собираются раздельно; с кэшем и app.datasource.routing.cache-loads-on-primary
+ * все промахи идут пачками в primary, как и загрузки самого кэша.
+ * <p>
+ * Через кэш загрузка идет по {@link UserCache#getAsync}: кэш получает только future, а лидер ждет пачку
+ * уже после выхода из ConcurrentHashMap.compute, не задерживая загрузки других ключей того же bin.
+ * <p>
+ * Метрики: users.coalescer.requests - число промахов кэша getById, users.coalescer.batch.size - размер
+ * каждого запроса в базу. requests / batch.size.count - во сколько раз меньше запросов уходит в базу.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.users.coalescing", name = "enabled", havingValue = "true")
+public class UserLookupCoalescer {
+
+    static final String REQUESTS = "users.coalescer.requests";
+    static final String BATCH_SIZE = "users.coalescer.batch.size";
+
+    private static final UserCache NO_CACHE = new NoOpUserCache();
+
+    private final UserRepository userRepository;
+    private final long maxWaitNanos;
+    private final int maxBatchSize;
+    private final Counter requests;
+    private final DistributionSummary batchSizes;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final boolean cacheLoadsOnPrimary;
+    private final Object lock = new Object();
+    /** Открытые пачки: [0] - чтение с реплики, [1] - с primary. */
+    private final Batch[] open = new Batch[2];
+
+    public UserLookupCoalescer(UserRepository userRepository, UserProperties userProperties,
+                               ReplicaRoutingProperties replicaRoutingProperties, MeterRegistry meterRegistry) {
+        UserProperties.Coalescing properties = userProperties.getCoalescing();
+        this.userRepository = userRepository;
+        // то же правило, что у загрузок кэша в UserCacheConfig: строка с реплики пережила бы сброс кэша
+        this.cacheLoadsOnPrimary = userProperties.getCache().isEnabled() && replicaRoutingProperties.isEnabled()
+                && replicaRoutingProperties.isCacheLoadsOnPrimary();
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.maxBatchSize = properties.getMaxBatchSize();
+        this.requests = Counter.builder(REQUESTS)
+                .description("Промахи кэша getById, прошедшие через склейку")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE)
+                .description("Число разных id в одном запросе к базе")
+                .register(meterRegistry);
+    }
+
+    /** Пользователь по id или null, если его нет; без кэша. */
+    public UserDto load(Integer id) {
+        return load(id, NO_CACHE);
+    }
+
+    /**
+     * Пользователь по id через кэш или null, если его нет. В кэш попадает только future загрузки;
+     * ожидание пачки и запрос к базе выполняются после выхода из кэша, не под его блокировкой.
+     */
+    public UserDto load(Integer id, UserCache userCache) {
+        // попадания в кэш не считаются: requests и inFlight - только промахи, дошедшие до enqueue
+        Batch[] led = new Batch[1];
+        boolean[] enqueued = new boolean[1];
+        try {
+            CompletableFuture<UserDto> result = userCache.getAsync(id, key -> enqueue(key, led, enqueued));
+            if (led[0] != null) {
+                lead(led[0]);
+            }
+            return join(result);
+        } finally {
+            if (enqueued[0]) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Добавляет id в открытую пачку; если пачку пришлось открыть, она записывается в led.
+     * Поток, дошедший сюда, считается загрузкой в работе, пока не дождется результата.
+     */
+    private CompletableFuture<UserDto> enqueue(Integer id, Batch[] led, boolean[] enqueued) {
+        requests.increment();
+        inFlight.incrementAndGet();
+        enqueued[0] = true;
+        int route = cacheLoadsOnPrimary || ReplicaRoutingContext.isPrimaryForced() ? 1 : 0;
+        synchronized (lock) {
+            Batch batch = open[route];
+            if (batch == null) {
+                batch = new Batch(route);
+                open[route] = batch;
+                led[0] = batch;
+            }
+            CompletableFuture<UserDto> result = batch.lookups.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (batch.lookups.size() >= maxBatchSize) {
+                open[route] = null;
+                batch.full.countDown();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Ждет пачку и выполняет ее. Что бы ни случилось с потоком лидера, включая Error,
+     * в finally каждый getById пачки получает результат или ошибку и не ждет вечно.
+     */
+    private void lead(Batch batch) {
+        try {
+            if (inFlight.get() > 1) {
+                await(batch);
+            }
+            close(batch);
+            execute(batch);
+        } finally {
+            close(batch);
+            batch.lookups.values().forEach(result -> result.completeExceptionally(
+                    new IllegalStateException("Coalesced lookup was not executed")));
+        }
+    }
+
+    private void close(Batch batch) {
+        synchronized (lock) {
+            if (open[batch.route] == batch) {
+                open[batch.route] = null;
+            }
+        }
+    }
+
+    private void await(Batch batch) {
+        try {
+            batch.full.await(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            // пачку все равно нужно выполнить: ее ждут другие запросы
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Пачка закрыта: новые id в нее не попадают, поэтому lookups читается без блокировки. */
+    private void execute(Batch batch) {
+        batchSizes.record(batch.lookups.size());
+        try {
+            Map<Integer, UserDto> found = new HashMap<>();
+            // пачку primary выполняет лидер, даже если сам он попал в нее только по cache-loads-on-primary
+            List<UserDto> users = batch.route == 1
+                    ? ReplicaRoutingContext.callOnPrimary(() -> userRepository.findDtosByIdIn(batch.lookups.keySet()))
+                    : userRepository.findDtosByIdIn(batch.lookups.keySet());
+            for (UserDto userDto : users) {
+                found.put(userDto.getId(), userDto);
+            }
+            batch.lookups.forEach((id, result) -> result.complete(found.get(id)));
+        } catch (RuntimeException e) {
+            batch.lookups.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    private static UserDto join(CompletableFuture<UserDto> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Batch {
+        private final int route;
+        private final Map<Integer, CompletableFuture<UserDto>> lookups = new HashMap<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private Batch(int route) {
+            this.route = route;
+        }
+    }
+}
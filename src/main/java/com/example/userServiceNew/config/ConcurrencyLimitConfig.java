@@ -0,0 +1,38 @@
+package com.example.userServiceNew.config;
+
+import com.example.userServiceNew.limiter.ConcurrencyLimitFilter;
+import com.example.userServiceNew.limiter.ConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Адаптивный лимит одновременных запросов перед UserController. Фильтр стоит первым,
+ * чтобы отклоненный запрос не доходил ни до маршрутизации реплики, ни до подсчета SQL.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "app.users.limiter", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimiter concurrencyLimiter(UserProperties userProperties, MeterRegistry meterRegistry) {
+        return new ConcurrencyLimiter(userProperties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ConcurrencyLimiter concurrencyLimiter,
+                                                                                 ObjectMapper objectMapper,
+                                                                                 UserProperties userProperties) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(concurrencyLimiter, objectMapper, userProperties.getLimiter().getRetryAfter()));
+        registration.addUrlPatterns("/users/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.userServiceNew.config;
+
+import com.example.userServiceNew.model.UserIdGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+    /** Размер блока id для {@link UserIdGenerator}; тот же размер Flyway выставляет последовательности. */
+    @Bean
+    public HibernatePropertiesCustomizer userIdAllocationSizeCustomizer(UserProperties userProperties) {
+        int allocationSize = userProperties.getId().getAllocationSize();
+        if (allocationSize < 1) {
+            throw new IllegalStateException("app.users.id.allocation-size должен быть не меньше 1");
+        }
+        return properties -> properties.put(UserIdGenerator.ALLOCATION_SIZE, allocationSize);
+    }
+}
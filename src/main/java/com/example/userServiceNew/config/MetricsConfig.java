@@ -0,0 +1,54 @@
+package com.example.userServiceNew.config;
+
+import com.example.userServiceNew.cache.CaffeineUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.ingestion.UserIngestionService;
+import com.example.userServiceNew.metrics.QueryCountFilter;
+import com.example.userServiceNew.metrics.QueryCountInspector;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Метрики сервиса. Статистику Hibernate (hibernate.* в /actuator/prometheus) регистрирует
+ * HibernateMetricsAutoConfiguration Spring Boot: для нее нужны hibernate-micrometer и generate_statistics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder userCacheMetrics(UserCache userCache) {
+        return registry -> {
+            if (userCache instanceof CaffeineUserCache caffeineUserCache) {
+                CaffeineCacheMetrics.monitor(registry, caffeineUserCache.getNativeCache(), "users");
+            }
+        };
+    }
+
+    /** Заполненность очереди отложенной записи, если режим включен. */
+    @Bean
+    public MeterBinder userIngestionMetrics(ObjectProvider<UserIngestionService> userIngestionService) {
+        return registry -> userIngestionService.ifAvailable(service ->
+                Gauge.builder("users.ingestion.queue", service, UserIngestionService::getQueueSize)
+                        .description("Пользователи в очереди отложенной записи")
+                        .register(registry));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCountInspector());
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public QueryCountFilter queryCountFilter(MeterRegistry meterRegistry) {
+        return new QueryCountFilter(meterRegistry);
+    }
+}
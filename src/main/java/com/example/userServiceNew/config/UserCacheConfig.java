@@ -0,0 +1,39 @@
+package com.example.userServiceNew.config;
+
+import com.example.userServiceNew.cache.CaffeineUserCache;
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.routing.ReplicaRoutingContext;
+import com.example.userServiceNew.routing.ReplicaRoutingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class UserCacheConfig {
+
+    /**
+     * При чтении с реплики промахи кэша по умолчанию загружаются с primary (app.datasource.routing.cache-loads-on-primary).
+     * Если загрузка с реплики включена явно, клиент, только что писавший, и при загрузке в отдельном потоке
+     * читает с primary, как решил ReadYourWritesFilter. Склейка getById применяет то же правило сама.
+     */
+    @Bean
+    public UserCache userCache(UserProperties userProperties, ReplicaRoutingProperties replicaRoutingProperties,
+                               @Qualifier("virtualThreadExecutor") ObjectProvider<ExecutorService> virtualThreadExecutor) {
+        UserProperties.Cache cache = userProperties.getCache();
+        if (!cache.isEnabled()) {
+            return new NoOpUserCache();
+        }
+        Executor loadExecutor = virtualThreadExecutor.getIfAvailable();
+        if (replicaRoutingProperties.isEnabled() && replicaRoutingProperties.isCacheLoadsOnPrimary()) {
+            loadExecutor = ReplicaRoutingContext.onPrimary(loadExecutor == null ? Runnable::run : loadExecutor);
+        } else if (replicaRoutingProperties.isEnabled() && loadExecutor != null) {
+            loadExecutor = ReplicaRoutingContext.inheriting(loadExecutor);
+        }
+        return loadExecutor == null ? new CaffeineUserCache(cache) : new CaffeineUserCache(cache, loadExecutor);
+    }
+}
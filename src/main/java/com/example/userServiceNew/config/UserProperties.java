@@ -0,0 +1,170 @@
+package com.example.userServiceNew.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "app.users")
+public class UserProperties {
+
+    private Page page = new Page();
+    private Stream stream = new Stream();
+    private Batch batch = new Batch();
+    private Cache cache = new Cache();
+    private WriteBehind writeBehind = new WriteBehind();
+    private Id id = new Id();
+    private Partitioning partitioning = new Partitioning();
+    private Archive archive = new Archive();
+    private Coalescing coalescing = new Coalescing();
+    private Copy copy = new Copy();
+    private Limiter limiter = new Limiter();
+
+    @Data
+    public static class Page {
+        /** Размер страницы, если клиент не передал limit. */
+        private int defaultLimit = 50;
+        /** Верхняя граница limit, чтобы одна страница не тянула всю таблицу. */
+        private int maxLimit = 1000;
+        /** Сколько результатов возвращает /users/search без limit. */
+        private int searchLimit = 50;
+    }
+
+    @Data
+    public static class Stream {
+        /** Сколько строк драйвер забирает из курсора за один round-trip. */
+        private int fetchSize = 500;
+    }
+
+    @Data
+    public static class Batch {
+        /** Сколько элементов пишется в одной транзакции. */
+        private int chunkSize = 500;
+    }
+
+    @Data
+    public static class Cache {
+        /** false - getById всегда ходит в базу. */
+        private boolean enabled = true;
+        private long maximumSize = 100_000;
+        private Duration ttl = Duration.ofMinutes(10);
+        private CacheCluster cluster = new CacheCluster();
+    }
+
+    @Data
+    public static class CacheCluster {
+        /** true - кэш сбрасывает пользователей, измененных любым экземпляром, по NOTIFY users_changed. */
+        private boolean enabled = false;
+        /** Сколько ждать уведомлений, прежде чем проверить, живо ли соединение LISTEN. */
+        private Duration pollTimeout = Duration.ofSeconds(5);
+        /** Пауза перед повторным подключением после обрыва. */
+        private Duration reconnectDelay = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class WriteBehind {
+        /** true - POST /users кладет пользователя в очередь и отвечает 202 с trackingId. */
+        private boolean enabled = false;
+        /** Размер очереди; при переполнении запрос отклоняется с 503. */
+        private int capacity = 10_000;
+        /** Сколько ждать свободного места в очереди; 0 - отклонять сразу. */
+        private Duration offerTimeout = Duration.ZERO;
+        /** Сколько пользователей пишется в одной транзакции. */
+        private int batchSize = 500;
+        /** Сколько фоновый поток ждет первого элемента, прежде чем проверить остановку. */
+        private Duration flushInterval = Duration.ofMillis(200);
+        /** Пауза перед повтором пачки, которую не удалось записать из-за недоступности базы; удваивается до max-retry-backoff. */
+        private Duration retryBackoff = Duration.ofSeconds(1);
+        private Duration maxRetryBackoff = Duration.ofSeconds(30);
+        /** Сколько ждать дописи очереди при остановке приложения. */
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+        /** Файл журнала; если не задан, очередь живет только в памяти. */
+        private Path journal;
+        /** true - fsync после каждой записи в журнал: переживает отключение питания, но медленнее. */
+        private boolean journalFsync = false;
+        /** Сколько хранится статус по trackingId. */
+        private Duration statusTtl = Duration.ofHours(1);
+        private long statusMaximumSize = 100_000;
+    }
+
+    @Data
+    public static class Id {
+        /**
+         * Сколько id резервирует один nextval; равен INCREMENT BY users_id_seq.
+         * Уменьшать только при остановленных экземплярах: старые еще выдают id блоками прежнего размера.
+         */
+        private int allocationSize = 50;
+    }
+
+    @Data
+    public static class Partitioning {
+        /** true - users секционирована по месяцам (профиль partitioning), секции создаются заранее. */
+        private boolean enabled = false;
+        /** На сколько месяцев вперед от текущего держать готовые секции. */
+        private int monthsAhead = 3;
+        /** Как часто проверяются секции. */
+        private Duration interval = Duration.ofHours(1);
+    }
+
+    public enum ArchiveTarget {
+        /** Перенос в таблицу users_archive. */
+        TABLE,
+        /** Выгрузка в сжатый NDJSON-файл в directory, строки удаляются из users. */
+        FILE
+    }
+
+    @Data
+    public static class Archive {
+        /** true - пользователи старше retention периодически уходят из users в архив. */
+        private boolean enabled = false;
+        /** Сколько пользователь живет в users после create_at. */
+        private Duration retention = Duration.ofDays(365);
+        private ArchiveTarget target = ArchiveTarget.TABLE;
+        /** Каталог для файлов выгрузки при target: file. */
+        private Path directory = Path.of("archive");
+        /** Сколько пользователей переносится в одной транзакции. */
+        private int batchSize = 1000;
+        /** Как часто запускается архивация. */
+        private Duration interval = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class Coalescing {
+        /** true - одновременные getById по разным id собираются в один SELECT ... WHERE id IN (...). */
+        private boolean enabled = false;
+        /** Сколько первый запрос пачки ждет остальных; столько же добавляется к задержке getById. */
+        private Duration maxWait = Duration.ofNanos(500_000);
+        /** Пачка уходит в базу сразу, как только набралось столько разных id. */
+        private int maxBatchSize = 64;
+    }
+
+    @Data
+    public static class Copy {
+        /** Буфер между телом HTTP и COPY в каждую сторону: столько памяти держит один импорт или выгрузка. */
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+    }
+
+    @Data
+    public static class Limiter {
+        /** true - запросы к /users проходят через адаптивный лимит одновременных запросов. */
+        private boolean enabled = false;
+        /** Лимит до первых замеров задержки. */
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        /** Больше пула соединений Hikari лимит ставить бессмысленно: лишние запросы все равно ждут соединение. */
+        private int maxLimit = 200;
+        /** Доля лимита, которую могут занять запросы на запись; остальное всегда остается чтению. */
+        private double writeShare = 0.5;
+        /** Во сколько раз задержка может превысить долгую среднюю, прежде чем лимит начнет снижаться. */
+        private double rttTolerance = 1.5;
+        /** Вес нового значения лимита при сглаживании, 0..1. */
+        private double smoothing = 0.2;
+        /** Число замеров, по которым считается долгая средняя задержка. */
+        private int longWindow = 600;
+        /** Retry-After в ответе 503 на отклоненный запрос. */
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+}
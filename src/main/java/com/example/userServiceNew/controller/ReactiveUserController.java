@@ -0,0 +1,85 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.dto.StatusResponse;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.service.ReactiveUserCRUDService;
+import com.example.userServiceNew.service.ServiceResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * WebFlux-вариант {@link UserController}; активен, когда приложение запущено
+ * как реактивное (профиль reactive). Коды ответов, Location и проверка данных - те же.
+ */
+@RequestMapping("/users")
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserController {
+
+    private final ReactiveUserCRUDService userService;
+
+    private static final String SAVE_FAILED = "Произошла ошибка при попытке сохранения пользователя";
+
+    /** 201 с Location нового пользователя, некорректные данные - 400, занятый email - 409. */
+    @PostMapping
+    public Mono<ResponseEntity<StatusResponse>> createUser(@Validated(UserDto.Create.class) @RequestBody UserDto userDto,
+                                                           ServerHttpRequest request){
+        return userService.create(userDto)
+                .map(result -> {
+                    if (!result.isOk()) {
+                        return failed(result, SAVE_FAILED);
+                    }
+                    URI location = UriComponentsBuilder.fromHttpRequest(request)
+                            .path("/{id}").buildAndExpand(result.getValue().getId()).toUri();
+                    return ResponseEntity.created(location).body(new Response(0, "Пользователь сохранен", null));
+                });
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UserResponseDto>> getUserById(@PathVariable Integer id) {
+        return userService.getById(id)
+                .map(result -> {
+                    UserResponseDto body = result.isOk() ? new UserResponseDto(0, result.getValue(), null)
+                            : new UserResponseDto(1, null, result.getErrors());
+                    return ResponseEntity.status(UserController.httpStatus(result)).body(body);
+                });
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<UserResponseDto> getAllUsers(){
+        return userService.getAll()
+                .map(userDto -> new UserResponseDto(0, userDto, null));
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<StatusResponse>> deleteUser(@PathVariable Integer id){
+        return userService.delete(id)
+                .map(result -> result.isOk() ? ResponseEntity.ok(new Response(0, "Пользователь удален", null))
+                        : failed(result, "Удаление пользователя не возможно"));
+    }
+
+    @RequestMapping(value = "/{id}", method = {RequestMethod.PUT, RequestMethod.PATCH})
+    public Mono<ResponseEntity<StatusResponse>> updateUser(@PathVariable Integer id,
+                                                           @Validated(UserDto.Update.class) @RequestBody UserDto userDto){
+        return userService.update(id, userDto)
+                .map(result -> result.isOk() ? ResponseEntity.ok(new Response(0, "Пользователь обновлен", null))
+                        : failed(result, "Обновление пользователя не возможно"));
+    }
+
+    private static ResponseEntity<StatusResponse> failed(ServiceResult<?> result, String message) {
+        return ResponseEntity.status(UserController.httpStatus(result)).body(new Response(1, message, result.getErrors()));
+    }
+}
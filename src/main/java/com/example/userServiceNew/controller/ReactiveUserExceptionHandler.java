@@ -0,0 +1,74 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import java.util.List;
+
+/**
+ * Исключения {@link ReactiveUserController} в обычном конверте со status 1, с теми же кодами
+ * и сообщениями, что у {@link UserExceptionHandler}: детали исключения клиенту не уходят, только в лог.
+ */
+@Slf4j
+@RestControllerAdvice(assignableTypes = ReactiveUserController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserExceptionHandler {
+
+    /** Нарушения @Validated в теле запроса - 400 с тем же списком полей, что у UserExceptionHandler.invalidUser. */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Response> invalidUser(WebExchangeBindException e) {
+        List<String> errors = e.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .toList();
+        return ResponseEntity.badRequest().body(new Response(1, "Некорректные данные пользователя", errors));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Response> concurrentUpdate(OptimisticLockingFailureException e) {
+        return error(HttpStatus.CONFLICT, "Пользователь был изменен другим запросом");
+    }
+
+    /** Уникальность email, проверенная базой. */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Response> constraintViolation(DataIntegrityViolationException e) {
+        log.debug("Constraint violation", e);
+        return error(HttpStatus.CONFLICT, "Данные пользователя конфликтуют с существующими");
+    }
+
+    /** База недоступна или перегружена: клиенту имеет смысл повторить запрос. */
+    @ExceptionHandler({TransientDataAccessException.class, DataAccessResourceFailureException.class,
+            CannotCreateTransactionException.class})
+    public ResponseEntity<Response> databaseUnavailable(Exception e) {
+        log.warn("Database unavailable: {}", e.toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new Response(1, "Сервис временно недоступен", List.of(e.getClass().getSimpleName())));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Response> unexpected(Exception e) throws Exception {
+        if (e instanceof ErrorResponse) {
+            // ошибки разбора запроса (405, 415, нечитаемое тело и т.д.) отдаем стандартному обработчику WebFlux
+            throw e;
+        }
+        log.error("Unhandled error in ReactiveUserController", e);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Внутренняя ошибка сервера");
+    }
+
+    private static ResponseEntity<Response> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new Response(1, message, null));
+    }
+}
@@ -1,48 +1,331 @@
 package com.example.userServiceNew.controller;
 
+import com.example.userServiceNew.bulk.CopyFormat;
+import com.example.userServiceNew.bulk.UserCopyService;
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.dto.IngestionState;
+import com.example.userServiceNew.dto.IngestionStatusDto;
 import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.dto.StatusResponse;
 import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserPageDto;
 import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.ingestion.UserIngestionService;
+import com.example.userServiceNew.service.ServiceResult;
+import com.example.userServiceNew.service.UserBatchService;
 import com.example.userServiceNew.service.UserCRUDService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @RequestMapping("/users")
 @RestController
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
     private final UserCRUDService userService;
+    private final UserBatchService userBatchService;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<UserIngestionService> userIngestionService;
+    private final UserCopyService userCopyService;
 
+    private static final String SAVE_FAILED = "Произошла ошибка при попытке сохранения пользователя";
+    private static final String TEXT_CSV = "text/csv";
+
+    /**
+     * 201 с Location нового пользователя. Некорректные данные отклоняются с 400,
+     * email известного пользователя - с 409, оба без обращения к базе.
+     * При app.users.write-behind.enabled пользователь ставится в очередь:
+     * 202 с trackingId, 503 при переполненной очереди.
+     */
     @PostMapping
-    public Response createUser(@RequestBody UserDto userDto){
-        return userService.create(userDto);
+    public ResponseEntity<StatusResponse> createUser(@Validated(UserDto.Create.class) @RequestBody UserDto userDto){
+        UserIngestionService ingestion = userIngestionService.getIfAvailable();
+        if (ingestion == null) {
+            ServiceResult<UserDto> result = userService.create(userDto);
+            if (!result.isOk()) {
+                return failed(result, SAVE_FAILED);
+            }
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .path("/{id}").buildAndExpand(result.getValue().getId()).toUri();
+            return ResponseEntity.created(location).body(new Response(0, "Пользователь сохранен", null));
+        }
+        if (userService.isEmailTaken(null, userDto.getEmail())) {
+            return failed(ServiceResult.conflict(UserCRUDService.EMAIL_TAKEN), SAVE_FAILED);
+        }
+        IngestionStatusDto status = ingestion.submit(userDto);
+        if (status.getState() == IngestionState.QUEUED) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+        }
+        if (status.getState() == IngestionState.REJECTED) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(status);
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    @GetMapping("/ingestion/{trackingId}")
+    public ResponseEntity<IngestionStatusDto> getIngestionStatus(@PathVariable String trackingId){
+        UserIngestionService ingestion = userIngestionService.getIfAvailable();
+        if (ingestion == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ingestion.getStatus(trackingId));
     }
 
 
+    /**
+     * Для условного запроса сначала сверяется только версия (из кэша или узким запросом):
+     * если она совпала, ответ 304 без чтения строки и сериализации.
+     */
     @GetMapping("/{id}")
-    public UserResponseDto getUserById(@PathVariable Integer id) {
-        return userService.getById(id);
+    public ResponseEntity<UserResponseDto> getUserById(@PathVariable Integer id, WebRequest request) {
+        UserVersion version = null;
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null) {
+            version = userService.getVersion(id).orElse(null);
+            if (version != null && notModified(request, id, version.getVersion(), version.getUpdateAt())) {
+                return null;
+            }
+        }
+        ServiceResult<UserDto> result = userService.getById(id);
+        if (version == null && notModified(request, result)) {
+            return null;
+        }
+        return toUserResponse(result);
     }
 
+    /** Без параметров - первая страница с лимитом по умолчанию; следующие - ?after=nextCursor&limit=. */
     @GetMapping
-    public Collection<UserResponseDto> getAllUsers(){
-        return userService.getAll();
+    public ResponseEntity<UserPageDto> getAllUsers(){
+        return withETag(userService.getAll());
+    }
+
+    @GetMapping("/by-email/{email}")
+    public ResponseEntity<UserResponseDto> getUserByEmail(@PathVariable String email, WebRequest request) {
+        ServiceResult<UserDto> result = userService.getByEmail(email);
+        return notModified(request, result) ? null : toUserResponse(result);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<UserPageDto> searchUsers(@RequestParam(required = false) String name,
+                                                   @RequestParam(required = false) Integer minAge,
+                                                   @RequestParam(required = false) Integer maxAge,
+                                                   @RequestParam(required = false) Integer limit){
+        return withETag(userService.search(name, minAge, maxAge, limit));
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<UserPageDto> getUsersPage(@RequestParam(required = false) Integer after,
+                                                    @RequestParam Integer limit){
+        return withETag(userService.getPage(after, limit));
+    }
+
+    /** Границы в ISO-8601 (2024-01-01T00:00), createdTo не включается; after и limit - как у страниц. */
+    @GetMapping(params = {"createdFrom", "createdTo"})
+    public ResponseEntity<UserPageDto> getUsersCreatedBetween(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(required = false) Integer limit){
+        ServiceResult<UserPageDto> result = userService.getCreatedBetween(createdFrom, createdTo, after, limit);
+        return result.isOk() ? withETag(result.getValue()) : invalidPage(result);
+    }
+
+    /** Мульти-get: GET /users?ids=1,2,3. Порядок - как в запросе, несуществующие id пропускаются. */
+    @GetMapping(params = "ids")
+    public ResponseEntity<UserPageDto> getUsersByIds(@RequestParam List<Integer> ids){
+        ServiceResult<UserPageDto> result = userService.getByIds(ids);
+        return result.isOk() ? withETag(result.getValue()) : invalidPage(result);
+    }
+
+    /** То же, что GET /users?ids=, но id в теле, когда они не помещаются в URL. Только читает. */
+    @PostMapping(value = "/by-ids", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserPageDto> postUsersByIds(@RequestBody List<Integer> ids){
+        ServiceResult<UserPageDto> result = userService.getByIds(ids);
+        return result.isOk() ? ResponseEntity.ok(result.getValue()) : invalidPage(result);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersNdjson(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeUsers(objectMapper.writer().withRootValueSeparator("\n").writeValues(out)));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersJson(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> writeUsers(objectMapper.writer().writeValuesAsArray(out)));
+    }
+
+    @GetMapping("/cache/stats")
+    public CacheStatsDto getCacheStats(){
+        return userService.getCacheStats();
     }
 
     @DeleteMapping("/{id}")
-    public Response deleteUser(@PathVariable Integer id){
-        return userService.delete(id);
+    public ResponseEntity<StatusResponse> deleteUser(@PathVariable Integer id){
+        ServiceResult<Void> result = userService.delete(id);
+        return result.isOk() ? ResponseEntity.ok(new Response(0, "Пользователь удален", null))
+                : failed(result, "Удаление пользователя не возможно");
+    }
+
+    @RequestMapping(value = "/{id}", method = {RequestMethod.PUT, RequestMethod.PATCH})
+    public ResponseEntity<StatusResponse> updateUser(@PathVariable Integer id,
+                                                     @Validated(UserDto.Update.class) @RequestBody UserDto userDto){
+        ServiceResult<Void> result = userService.update(id, userDto);
+        return result.isOk() ? ResponseEntity.ok(new Response(0, "Пользователь обновлен", null))
+                : failed(result, "Обновление пользователя не возможно");
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResponse createUsers(@RequestBody List<UserDto> userDtos){
+        return userBatchService.createAll(userDtos.iterator());
     }
 
-    @PutMapping("/{id}")
-    public Response updateUser(@PathVariable Integer id,@RequestBody UserDto userDto){
-        return userService.update(id, userDto);
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResponse createUsersNdjson(InputStream body) throws IOException {
+        return userBatchService.createAll(objectMapper.readerFor(UserDto.class).readValues(body));
     }
 
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResponse updateUsers(@RequestBody List<UserDto> userDtos){
+        return userBatchService.updateAll(userDtos.iterator());
+    }
 
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchResponse updateUsersNdjson(InputStream body) throws IOException {
+        return userBatchService.updateAll(objectMapper.readerFor(UserDto.class).readValues(body));
+    }
+
+    @DeleteMapping("/batch")
+    public BatchResponse deleteUsers(@RequestBody List<Integer> ids){
+        return userBatchService.deleteAll(ids.iterator());
+    }
+
+    /**
+     * Импорт CSV через COPY: первая строка - заголовок с колонками users.
+     * upsert=true обновляет существующих пользователей по id вместо 409 на совпадении.
+     */
+    @PostMapping(value = "/import", consumes = TEXT_CSV)
+    public ResponseEntity<StatusResponse> importUsersCsv(InputStream body,
+                                                         @RequestParam(defaultValue = "false") boolean upsert,
+                                                         @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength){
+        return imported(userCopyService.importCsv(body, upsert, contentLength));
+    }
+
+    /** Импорт бинарного формата COPY; columns - колонки потока, по умолчанию все. */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StatusResponse> importUsersBinary(InputStream body,
+                                                            @RequestParam(required = false) List<String> columns,
+                                                            @RequestParam(defaultValue = "false") boolean upsert,
+                                                            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength){
+        return imported(userCopyService.importBinary(body, columns, upsert, contentLength));
+    }
+
+    @GetMapping(value = "/export", produces = TEXT_CSV)
+    public ResponseEntity<StreamingResponseBody> exportUsersCsv(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(TEXT_CSV))
+                .body(out -> userCopyService.export(CopyFormat.CSV, out));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsersBinary(){
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(out -> userCopyService.export(CopyFormat.BINARY, out));
+    }
+
+    /** Импорты и выгрузки, которые сейчас выполняются в этом экземпляре. */
+    @GetMapping("/copy/progress")
+    public List<CopyProgressDto> getCopyProgress(){
+        return userCopyService.getProgress();
+    }
+
+    /** 404, 400 или 409 по исходу операции; тело - обычный конверт со status 1. */
+    static HttpStatus httpStatus(ServiceResult<?> result) {
+        return switch (result.getOutcome()) {
+            case OK -> HttpStatus.OK;
+            case NOT_FOUND -> HttpStatus.NOT_FOUND;
+            case INVALID -> HttpStatus.BAD_REQUEST;
+            case CONFLICT -> HttpStatus.CONFLICT;
+        };
+    }
+
+    private static ResponseEntity<StatusResponse> failed(ServiceResult<?> result, String message) {
+        return ResponseEntity.status(httpStatus(result)).body(new Response(1, message, result.getErrors()));
+    }
+
+    private static ResponseEntity<StatusResponse> imported(ServiceResult<CopyProgressDto> result) {
+        return result.isOk() ? ResponseEntity.ok(result.getValue()) : failed(result, "Импорт пользователей не возможен");
+    }
+
+    private static ResponseEntity<UserPageDto> invalidPage(ServiceResult<UserPageDto> result) {
+        return ResponseEntity.status(httpStatus(result)).body(new UserPageDto(1, List.of(), null, result.getErrors()));
+    }
+
+    private static ResponseEntity<UserResponseDto> toUserResponse(ServiceResult<UserDto> result) {
+        UserResponseDto body = result.isOk() ? new UserResponseDto(0, result.getValue(), null)
+                : new UserResponseDto(1, null, result.getErrors());
+        return ResponseEntity.status(httpStatus(result)).body(body);
+    }
+
+    /** Ставит ETag и Last-Modified; true - у клиента актуальная копия и ответ уже 304. */
+    private static boolean notModified(WebRequest request, Integer id, Long version, LocalDateTime updateAt) {
+        return request.checkNotModified(UserETags.of(id, version), UserETags.lastModified(updateAt));
+    }
+
+    private static boolean notModified(WebRequest request, ServiceResult<UserDto> result) {
+        UserDto userDto = result.getValue();
+        return userDto != null && notModified(request, userDto.getId(), userDto.getVersion(), userDto.getUpdateAt());
+    }
+
+    /** Слабый ETag страницы; при совпадении с If-None-Match Spring отвечает 304 без тела. */
+    private static ResponseEntity<UserPageDto> withETag(UserPageDto page) {
+        if (page.getStatus() != 0) {
+            return ResponseEntity.ok(page);
+        }
+        return ResponseEntity.ok().eTag(UserETags.of(page)).body(page);
+    }
+
+    private void writeUsers(SequenceWriter writer) throws IOException {
+        try (writer) {
+            userService.streamAll(userDto -> {
+                try {
+                    writer.write(userDto);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
 
 
 
@@ -0,0 +1,37 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Валидаторы для условных GET.
+ * У одного пользователя ETag сильный: id и version однозначно задают представление.
+ * У списка ETag слабый: это хэш пар id/version и курсора, а не байтов ответа.
+ */
+final class UserETags {
+
+    private UserETags() {
+    }
+
+    static String of(Integer id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static long lastModified(LocalDateTime updateAt) {
+        return updateAt == null ? -1 : updateAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static String of(UserPageDto page) {
+        StringBuilder key = new StringBuilder(page.getUsers().size() * 16);
+        for (UserDto userDto : page.getUsers()) {
+            key.append(userDto.getId()).append(':').append(userDto.getVersion()).append(',');
+        }
+        key.append(page.getNextCursor());
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.US_ASCII)) + "\"";
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConversionException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.List;
+
+/**
+ * Исключения {@link UserController} в обычном конверте со status 1.
+ * Сервис сообщает об ожидаемых исходах через ServiceResult, сюда попадают только
+ * невалидные запросы, гонки на уровне базы и ее недоступность.
+ */
+@Slf4j
+@RestControllerAdvice(assignableTypes = UserController.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class UserExceptionHandler {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<Response> invalidUser(MethodArgumentNotValidException e) {
+        List<String> errors = e.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .toList();
+        return ResponseEntity.badRequest().body(new Response(1, "Некорректные данные пользователя", errors));
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Response> concurrentUpdate(OptimisticLockingFailureException e) {
+        return error(HttpStatus.CONFLICT, "Пользователь был изменен другим запросом");
+    }
+
+    /** Уникальность email, проверенная базой, когда кэш о ней не знал. */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Response> constraintViolation(DataIntegrityViolationException e) {
+        log.debug("Constraint violation", e);
+        return error(HttpStatus.CONFLICT, "Данные пользователя конфликтуют с существующими");
+    }
+
+    /** База недоступна или перегружена: клиенту имеет смысл повторить запрос. */
+    @ExceptionHandler({TransientDataAccessException.class, DataAccessResourceFailureException.class,
+            CannotCreateTransactionException.class})
+    public ResponseEntity<Response> databaseUnavailable(Exception e) {
+        log.warn("Database unavailable: {}", e.toString());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new Response(1, "Сервис временно недоступен", List.of(e.getClass().getSimpleName())));
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Response> unexpected(Exception e) throws Exception {
+        if (e instanceof ErrorResponse || e instanceof HttpMessageConversionException
+                || e instanceof TypeMismatchException) {
+            // ошибки разбора запроса (405, 415, нечитаемое тело и т.д.) отдаем стандартному обработчику Spring MVC
+            throw e;
+        }
+        log.error("Unhandled error in UserController", e);
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "Внутренняя ошибка сервера");
+    }
+
+    private static ResponseEntity<Response> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(new Response(1, message, null));
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse implements StatusResponse {
+    private Integer status;
+    private String message;
+    /** Результат по каждому элементу в порядке запроса. */
+    private List<Response> results;
+}
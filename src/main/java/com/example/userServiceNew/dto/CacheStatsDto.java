@@ -0,0 +1,18 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDto {
+    private Boolean enabled;
+    private Long size;
+    private Long hitCount;
+    private Long missCount;
+    private Long loadCount;
+    private Long evictionCount;
+    private Double hitRate;
+}
@@ -0,0 +1,26 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ход или итог COPY-импорта или выгрузки. rows известно только по завершении;
+ * totalBytes - Content-Length импорта, если клиент его передал.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CopyProgressDto implements StatusResponse {
+    private Integer status;
+    private String id;
+    private String operation;
+    private Long rows;
+    private Long bytes;
+    private Long totalBytes;
+    private Long elapsedMillis;
+    private Long rowsPerSecond;
+    private List<String> error;
+}
@@ -0,0 +1,15 @@
+package com.example.userServiceNew.dto;
+
+/**
+ * Состояние пользователя, принятого в режиме отложенной записи.
+ */
+public enum IngestionState {
+    /** Принят и ждет записи в базу. */
+    QUEUED,
+    /** Записан в базу, userId заполнен. */
+    SAVED,
+    /** Запись не удалась, причина в error. */
+    FAILED,
+    /** Не принят: очередь переполнена или прием остановлен, запрос можно повторить. */
+    REJECTED
+}
@@ -0,0 +1,18 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestionStatusDto implements StatusResponse {
+    private Integer status;
+    private String trackingId;
+    private IngestionState state;
+    private Integer userId;
+    private List<String> error;
+}
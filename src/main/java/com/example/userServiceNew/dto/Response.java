@@ -7,7 +7,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Response {
+public class Response implements StatusResponse {
     private Integer status;
     private String message;
     private List<String> error;
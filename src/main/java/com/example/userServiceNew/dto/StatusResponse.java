@@ -0,0 +1,8 @@
+package com.example.userServiceNew.dto;
+
+/**
+ * Ответ сервиса с кодом результата: 0 - успех, 1 - ошибка.
+ */
+public interface StatusResponse {
+    Integer getStatus();
+}
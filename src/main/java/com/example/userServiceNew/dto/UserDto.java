@@ -1,18 +1,55 @@
 package com.example.userServiceNew.dto;
 
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+/**
+ * Ограничения проверяются по группам: {@link Create} - все поля обязательны,
+ * {@link Update} - поля необязательны, но заполненные должны быть корректны.
+ */
 @Data
 @NoArgsConstructor
+@AllArgsConstructor
 public class UserDto {
+
+    /** Группа проверок для создания пользователя. */
+    public interface Create {
+    }
+
+    /** Группа проверок для частичного обновления. */
+    public interface Update {
+    }
+
     private Integer id;
+
+    @NotBlank(groups = Create.class, message = "Имя не заполнено")
+    @Size(min = 1, max = 255, groups = {Create.class, Update.class}, message = "Имя должно быть от 1 до 255 символов")
     private String nameUser;
+
+    @NotBlank(groups = Create.class, message = "Email не заполнен")
+    @Email(groups = {Create.class, Update.class}, message = "Некорректный email")
+    @Size(max = 255, groups = {Create.class, Update.class}, message = "Email длиннее 255 символов")
     private String email;
+
+    @NotNull(groups = Create.class, message = "Возраст не заполнен")
+    @Min(value = 0, groups = {Create.class, Update.class}, message = "Возраст не может быть отрицательным")
+    @Max(value = 150, groups = {Create.class, Update.class}, message = "Возраст не может быть больше 150")
     private Integer age;
+
     private LocalDateTime createAt = LocalDateTime.now();
+    /** Время последнего изменения; заполняется базой, из запроса не читается. */
+    private LocalDateTime updateAt;
+    /** Версия строки для оптимистической блокировки; null - обновить без проверки. */
+    private Long version;
 
 }
@@ -0,0 +1,18 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageDto implements StatusResponse {
+    private Integer status;
+    private List<UserDto> users;
+    /** id последнего пользователя страницы, передается в after; null - страниц больше нет. */
+    private Integer nextCursor;
+    private List<String> error;
+}
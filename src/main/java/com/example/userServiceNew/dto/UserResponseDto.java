@@ -9,7 +9,7 @@ import java.util.List;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class UserResponseDto {
+public class UserResponseDto implements StatusResponse {
     private Integer status;
     private UserDto userDto;
     private List<String> error;
@@ -0,0 +1,20 @@
+package com.example.userServiceNew.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Версия строки users без данных пользователя: ее хватает, чтобы ответить на
+ * условный GET кодом 304.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserVersion {
+    private Integer id;
+    private Long version;
+    private LocalDateTime updateAt;
+}
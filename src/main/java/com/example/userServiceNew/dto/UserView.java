@@ -0,0 +1,17 @@
+package com.example.userServiceNew.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Проекция строки users для запросов поиска: Hibernate выбирает только колонки,
+ * без загрузки сущности User в persistence context.
+ */
+public interface UserView {
+    Integer getId();
+    String getNameUser();
+    String getEmail();
+    Integer getAge();
+    LocalDateTime getCreateAt();
+    LocalDateTime getUpdateAt();
+    Long getVersion();
+}
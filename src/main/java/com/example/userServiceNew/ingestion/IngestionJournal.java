@@ -0,0 +1,147 @@
+package com.example.userServiceNew.ingestion;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Журнал очереди отложенной записи, NDJSON только на дозапись.
+ * Принятый пользователь пишется строкой {@link PendingUser}, после записи в базу -
+ * строка {"committed":[trackingId...]}. При старте незакрытые записи возвращаются в очередь.
+ * Когда незакрытых записей не остается, файл обрезается до нуля.
+ */
+@Slf4j
+public class IngestionJournal implements Closeable {
+
+    private static final String COMMITTED = "committed";
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+    private FileChannel channel;
+    private int pending;
+
+    public IngestionJournal(Path path, ObjectMapper objectMapper, boolean fsync) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Открывает журнал и возвращает записи, не дошедшие до базы в прошлый запуск.
+     * Файл переписывается так, что в нем остаются только они.
+     */
+    public synchronized List<PendingUser> open() throws IOException {
+        List<PendingUser> unfinished = Files.exists(path) ? readUnfinished() : List.of();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PendingUser pendingUser : unfinished) {
+                write(out, pendingUser);
+            }
+            out.force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        pending = unfinished.size();
+        if (!unfinished.isEmpty()) {
+            log.info("Ingestion journal {}: {} users to replay", path, unfinished.size());
+        }
+        return unfinished;
+    }
+
+    public synchronized void append(PendingUser pendingUser) {
+        try {
+            write(channel, pendingUser);
+            if (fsync) {
+                channel.force(false);
+            }
+            pending++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Закрывает записи: пользователи записаны в базу или окончательно отклонены. */
+    public synchronized void commit(Collection<String> trackingIds) {
+        if (trackingIds.isEmpty()) {
+            return;
+        }
+        try {
+            pending -= trackingIds.size();
+            if (pending <= 0) {
+                pending = 0;
+                channel.truncate(0);
+            } else {
+                write(channel, Map.of(COMMITTED, trackingIds));
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private List<PendingUser> readUnfinished() throws IOException {
+        Map<String, PendingUser> unfinished = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = objectMapper.readTree(line);
+                } catch (IOException e) {
+                    // хвост, недописанный при падении процесса
+                    log.warn("Skipping corrupted ingestion journal line in {}", path);
+                    continue;
+                }
+                if (node.has(COMMITTED)) {
+                    node.get(COMMITTED).forEach(id -> unfinished.remove(id.asText()));
+                } else {
+                    PendingUser pendingUser = objectMapper.treeToValue(node, PendingUser.class);
+                    unfinished.put(pendingUser.getTrackingId(), pendingUser);
+                }
+            }
+        }
+        return new ArrayList<>(unfinished.values());
+    }
+
+    private void write(FileChannel out, Object value) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(value);
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
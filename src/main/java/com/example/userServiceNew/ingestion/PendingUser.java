@@ -0,0 +1,17 @@
+package com.example.userServiceNew.ingestion;
+
+import com.example.userServiceNew.dto.UserDto;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Пользователь в очереди отложенной записи; в том же виде пишется строкой в журнал.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingUser {
+    private String trackingId;
+    private UserDto user;
+}
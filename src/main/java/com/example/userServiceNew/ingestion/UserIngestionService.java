@@ -0,0 +1,309 @@
+package com.example.userServiceNew.ingestion;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.IngestionState;
+import com.example.userServiceNew.dto.IngestionStatusDto;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.service.UserCRUDService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Отложенная запись пользователей: альтернатива синхронному {@link UserCRUDService#create}.
+ * submit() кладет пользователя в ограниченную очередь (и в журнал, если он задан) и сразу
+ * возвращает trackingId; фоновый поток пишет очередь в базу пачками по batch-size.
+ * При остановке приложения очередь дописывается до конца. Пока база недоступна, пачка повторяется
+ * с растущей паузой и остается в журнале; окончательно отклоняются только пользователи с ошибкой данных.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.users.write-behind", name = "enabled", havingValue = "true")
+public class UserIngestionService implements SmartLifecycle {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
+    private final UserProperties.WriteBehind properties;
+    private final BlockingQueue<PendingUser> queue;
+    private final Cache<String, IngestionStatusDto> statuses;
+    private final IngestionJournal journal;
+    private final ReadWriteLock runningLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    /** Пользователи, не записанные из-за недоступности базы; меняет только фоновый поток. */
+    private volatile List<PendingUser> retrying = List.of();
+    private Thread flusher;
+
+    public UserIngestionService(UserRepository userRepository, TransactionTemplate transactionTemplate,
+                                UserCache userCache, UserProperties userProperties, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.userCache = userCache;
+        this.properties = userProperties.getWriteBehind();
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(properties.getStatusMaximumSize())
+                .expireAfterWrite(properties.getStatusTtl())
+                .build();
+        this.journal = properties.getJournal() == null ? null
+                : new IngestionJournal(properties.getJournal(), objectMapper, properties.isJournalFsync());
+    }
+
+    public IngestionStatusDto submit(UserDto userDto) {
+        if (userDto.getNameUser() == null || userDto.getEmail() == null || userDto.getAge() == null) {
+            return new IngestionStatusDto(1, null, null, null, List.of("Не все данные были заполнены"));
+        }
+        // проверка running и постановка в очередь под одной блокировкой с stop(): после остановки
+        // в очередь ничего не попадает, и все принятое дописывает последний проход drainLoop
+        Lock accepting = runningLock.readLock();
+        accepting.lock();
+        try {
+            return enqueue(userDto);
+        } finally {
+            accepting.unlock();
+        }
+    }
+
+    private IngestionStatusDto enqueue(UserDto userDto) {
+        if (!running) {
+            return rejected(null, "Прием пользователей остановлен");
+        }
+        PendingUser pendingUser = new PendingUser(UUID.randomUUID().toString(), userDto);
+        IngestionStatusDto queued = new IngestionStatusDto(0, pendingUser.getTrackingId(),
+                IngestionState.QUEUED, null, null);
+        statuses.put(pendingUser.getTrackingId(), queued);
+        if (journal != null) {
+            journal.append(pendingUser);
+        }
+        if (!offer(pendingUser)) {
+            statuses.invalidate(pendingUser.getTrackingId());
+            if (journal != null) {
+                journal.commit(List.of(pendingUser.getTrackingId()));
+            }
+            return rejected(null, "Очередь на создание пользователей переполнена");
+        }
+        return queued;
+    }
+
+    public IngestionStatusDto getStatus(String trackingId) {
+        IngestionStatusDto status = statuses.getIfPresent(trackingId);
+        if (status == null) {
+            return new IngestionStatusDto(1, trackingId, null, null,
+                    List.of("Заявки с таким trackingId не существует"));
+        }
+        return status;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (journal != null) {
+            try {
+                List<PendingUser> unfinished = journal.open();
+                List<PendingUser> notWritten = new ArrayList<>();
+                for (int from = 0; from < unfinished.size(); from += properties.getBatchSize()) {
+                    notWritten.addAll(flush(unfinished.subList(from,
+                            Math.min(unfinished.size(), from + properties.getBatchSize()))));
+                }
+                // база недоступна при старте: журнал дописывается фоновым потоком с повторами
+                retrying = notWritten;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        running = true;
+        flusher = new Thread(this::drainLoop, "users-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @Override
+    public void stop() {
+        // ждет submit, которые уже проверили running, но еще не положили пользователя в очередь
+        runningLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            runningLock.writeLock().unlock();
+        }
+        try {
+            flusher.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warn("Write-behind queue was not drained in {}, {} users left{}", properties.getShutdownTimeout(),
+                    queue.size() + retrying.size(), journal != null ? " in the journal" : "");
+            // поток не должен писать в закрытый журнал; незаписанное останется в журнале до следующего старта
+            flusher.interrupt();
+            try {
+                flusher.join(properties.getShutdownTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close ingestion journal", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Стартует раньше веб-сервера и останавливается после него: к моменту остановки новые
+     * запросы уже не приходят, а DataSource еще открыт.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void drainLoop() {
+        List<PendingUser> batch = new ArrayList<>(properties.getBatchSize());
+        long backoff = properties.getRetryBackoff().toMillis();
+        while (running || !queue.isEmpty() || !retrying.isEmpty()) {
+            try {
+                if (!retrying.isEmpty()) {
+                    Thread.sleep(backoff);
+                    retrying = flush(retrying);
+                    backoff = retrying.isEmpty() ? properties.getRetryBackoff().toMillis()
+                            : Math.min(backoff * 2, properties.getMaxRetryBackoff().toMillis());
+                    continue;
+                }
+                PendingUser first = queue.poll(properties.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                retrying = flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Write-behind flush failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Пишет пачку одной транзакцией. Если транзакция откатилась (например, повторный email),
+     * пользователи пишутся по одному, чтобы один плохой элемент не топил остальных.
+     * Окончательно отклоняются только пользователи с ошибкой данных; пока база недоступна,
+     * пользователи не считаются записанными, остаются в журнале и возвращаются для повтора.
+     *
+     * @return пользователи, которых нужно повторить позже
+     */
+    private List<PendingUser> flush(List<PendingUser> batch) {
+        List<User> users = batch.stream().map(pendingUser -> toEntity(pendingUser.getUser())).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(users));
+            for (int i = 0; i < batch.size(); i++) {
+                saved(batch.get(i), users.get(i));
+            }
+            commit(batch);
+            return List.of();
+        } catch (Exception e) {
+            if (isUnavailable(e)) {
+                log.warn("Write-behind batch of {} failed, database unavailable, will retry", batch.size(), e);
+                return new ArrayList<>(batch);
+            }
+            log.warn("Write-behind batch of {} failed, retrying one by one", batch.size(), e);
+        }
+        List<PendingUser> done = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            PendingUser pendingUser = batch.get(i);
+            User user = toEntity(pendingUser.getUser());
+            try {
+                transactionTemplate.executeWithoutResult(status -> userRepository.save(user));
+                saved(pendingUser, user);
+            } catch (Exception single) {
+                if (isUnavailable(single)) {
+                    log.warn("Write-behind database unavailable, {} users will be retried", batch.size() - i, single);
+                    commit(done);
+                    return new ArrayList<>(batch.subList(i, batch.size()));
+                }
+                log.warn("Write-behind user {} rejected", pendingUser.getTrackingId(), single);
+                statuses.put(pendingUser.getTrackingId(), new IngestionStatusDto(1, pendingUser.getTrackingId(),
+                        IngestionState.FAILED, null, List.of(single instanceof DataIntegrityViolationException
+                        ? "Данные пользователя конфликтуют с существующими" : "Внутренняя ошибка сервера")));
+            }
+            done.add(pendingUser);
+        }
+        commit(done);
+        return List.of();
+    }
+
+    private void commit(List<PendingUser> done) {
+        if (journal != null && !done.isEmpty()) {
+            journal.commit(done.stream().map(PendingUser::getTrackingId).toList());
+        }
+    }
+
+    /** База недоступна или перегружена: повтор имеет смысл, в отличие от ошибки в данных пользователя. */
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void saved(PendingUser pendingUser, User user) {
+        userCache.put(UserCRUDService.mapToDto(user));
+        statuses.put(pendingUser.getTrackingId(), new IngestionStatusDto(0, pendingUser.getTrackingId(),
+                IngestionState.SAVED, user.getId(), null));
+    }
+
+    private boolean offer(PendingUser pendingUser) {
+        try {
+            return queue.offer(pendingUser, properties.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static User toEntity(UserDto userDto) {
+        User user = UserCRUDService.mapToEntity(userDto);
+        user.setId(null);
+        return user;
+    }
+
+    private static IngestionStatusDto rejected(String trackingId, String reason) {
+        return new IngestionStatusDto(1, trackingId, IngestionState.REJECTED, null, List.of(reason));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.userServiceNew.limiter;
+
+import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.routing.ReadYourWritesFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Пропускает запросы к /users через {@link ConcurrencyLimiter}: чтение (GET, POST /users/by-ids)
+ * и запись идут разными полосами, сверх лимита - сразу 503 с Retry-After.
+ * Потоковые и пакетные запросы занимают место в лимите, но их задержка в расчет не идет:
+ * она зависит от объема данных, а не от перегрузки. Для async-запросов (выгрузка, /stream)
+ * место освобождается по завершении ответа, а не при выходе из фильтра.
+ */
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final List<String> UNSAMPLED = List.of("/users/import", "/users/export", "/users/stream",
+            "/users/batch");
+
+    private final ConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final Duration retryAfter;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ConcurrencyLimiter.Lane lane = ReadYourWritesFilter.isWrite(request)
+                ? ConcurrencyLimiter.Lane.WRITE : ConcurrencyLimiter.Lane.READ;
+        ConcurrencyLimiter.Permit permit = limiter.tryAcquire(lane);
+        if (permit == null) {
+            reject(response);
+            return;
+        }
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(permit));
+            } else {
+                permit.release(outcome(request, response, completed));
+            }
+        }
+    }
+
+    private static ConcurrencyLimiter.Outcome outcome(HttpServletRequest request, HttpServletResponse response,
+                                                      boolean completed) {
+        if (!completed) {
+            return ConcurrencyLimiter.Outcome.IGNORED;
+        }
+        if (response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            return ConcurrencyLimiter.Outcome.DROPPED;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return UNSAMPLED.stream().anyMatch(path::startsWith)
+                ? ConcurrencyLimiter.Outcome.IGNORED : ConcurrencyLimiter.Outcome.SUCCESS;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, retryAfter.toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                new Response(1, "Сервис перегружен, повторите запрос позже", null));
+    }
+
+    @RequiredArgsConstructor
+    private static class ReleaseOnComplete implements AsyncListener {
+
+        private final ConcurrencyLimiter.Permit permit;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // повторный startAsync снимает слушателей, регистрируемся заново
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.userServiceNew.limiter;
+
+import com.example.userServiceNew.config.UserProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Общий адаптивный лимит одновременных запросов с двумя полосами. Чтение может занять весь лимит,
+ * запись - не больше write-share его части, поэтому поток записи (пачки, импорт) не вытесняет getById.
+ * Сверх лимита запрос отклоняется сразу, без очереди: ожидание в очереди и есть то,
+ * от чего лимит защищает пул соединений.
+ * <p>
+ * Метрики: users.limiter.limit - текущий лимит, users.limiter.inflight{lane} - занято,
+ * users.limiter.rejected{lane} - отклонено.
+ */
+public class ConcurrencyLimiter {
+
+    public enum Lane {
+        READ,
+        WRITE
+    }
+
+    public enum Outcome {
+        /** Обычный ответ: задержка идет в расчет лимита. */
+        SUCCESS,
+        /** Перегрузка ниже по цепочке (503 от базы): лимит снижается. */
+        DROPPED,
+        /** Долгий поток или ошибка: задержка не показательна, разрешение просто освобождается. */
+        IGNORED
+    }
+
+    static final String LIMIT = "users.limiter.limit";
+    static final String INFLIGHT = "users.limiter.inflight";
+    static final String REJECTED = "users.limiter.rejected";
+
+    private final GradientLimit limit;
+    private final double writeShare;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final AtomicInteger writesInflight = new AtomicInteger();
+    private final Map<Lane, Counter> rejected = new EnumMap<>(Lane.class);
+
+    public ConcurrencyLimiter(UserProperties userProperties, MeterRegistry meterRegistry) {
+        UserProperties.Limiter properties = userProperties.getLimiter();
+        this.limit = new GradientLimit(properties);
+        this.writeShare = properties.getWriteShare();
+        Gauge.builder(LIMIT, limit, GradientLimit::getLimit)
+                .description("Текущий лимит одновременных запросов к /users")
+                .register(meterRegistry);
+        Gauge.builder(INFLIGHT, this, limiter -> limiter.inflight.get() - limiter.writesInflight.get())
+                .description("Выполняемые запросы к /users")
+                .tag("lane", "read")
+                .register(meterRegistry);
+        Gauge.builder(INFLIGHT, writesInflight, AtomicInteger::get)
+                .description("Выполняемые запросы к /users")
+                .tag("lane", "write")
+                .register(meterRegistry);
+        for (Lane lane : Lane.values()) {
+            rejected.put(lane, Counter.builder(REJECTED)
+                    .description("Запросы к /users, отклоненные с 503 сверх лимита")
+                    .tag("lane", lane.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    /** Разрешение на запрос или null, если лимит полосы исчерпан. */
+    public Permit tryAcquire(Lane lane) {
+        int current = limit.getLimit();
+        if (lane == Lane.WRITE && writesInflight.incrementAndGet() > Math.max(1, (int) (current * writeShare))) {
+            writesInflight.decrementAndGet();
+            rejected.get(lane).increment();
+            return null;
+        }
+        int started = inflight.incrementAndGet();
+        if (started > current) {
+            inflight.decrementAndGet();
+            if (lane == Lane.WRITE) {
+                writesInflight.decrementAndGet();
+            }
+            rejected.get(lane).increment();
+            return null;
+        }
+        return new Permit(lane, started);
+    }
+
+    /** Занятое место в лимите; освобождается один раз, повторные release ничего не делают. */
+    public final class Permit {
+
+        private final Lane lane;
+        private final int inflightAtStart;
+        private final long startedNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Lane lane, int inflightAtStart) {
+            this.lane = lane;
+            this.inflightAtStart = inflightAtStart;
+        }
+
+        public void release(Outcome outcome) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inflight.decrementAndGet();
+            if (lane == Lane.WRITE) {
+                writesInflight.decrementAndGet();
+            }
+            if (outcome != Outcome.IGNORED) {
+                limit.onSample(System.nanoTime() - startedNanos, inflightAtStart, outcome == Outcome.DROPPED);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.userServiceNew.limiter;
+
+import com.example.userServiceNew.config.UserProperties;
+
+/**
+ * Адаптивный лимит по градиенту задержки (как Gradient2 из Netflix concurrency-limits).
+ * <p>
+ * Долгая средняя задержка - экспоненциальная по long-window замерам, это "нормальная" задержка
+ * при текущей нагрузке. Пока каждый замер не больше rtt-tolerance долгих средних, лимит растет
+ * примерно на sqrt(limit) за шаг; когда задержка растет (база или пул не успевают), лимит
+ * умножается на градиент long/short, но не меньше чем вдвое за шаг. Ошибки перегрузки снижают лимит на 10%.
+ * Если занята меньше половины лимита, замер лимит не растит: нагрузка ограничена клиентами, не сервисом.
+ */
+public class GradientLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double longRttFactor;
+    private double estimatedLimit;
+    private double longRtt;
+    private int samples;
+
+    public GradientLimit(UserProperties.Limiter properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.rttTolerance = properties.getRttTolerance();
+        this.smoothing = properties.getSmoothing();
+        this.longRttFactor = 2.0 / (properties.getLongWindow() + 1);
+        this.estimatedLimit = properties.getInitialLimit();
+    }
+
+    public synchronized int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    /**
+     * @param rttNanos задержка завершенного запроса
+     * @param inflight сколько запросов выполнялось, когда этот начался
+     * @param dropped  запрос закончился перегрузкой (503 от базы), задержка не показательна
+     */
+    public synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            return;
+        }
+        double shortRtt = Math.max(1, rttNanos);
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRtt += (shortRtt - longRtt) / samples;
+        } else {
+            longRtt += (shortRtt - longRtt) * longRttFactor;
+        }
+        // после долгой перегрузки средняя высокая; подтягиваем ее к текущей, чтобы лимит мог снова расти
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inflight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
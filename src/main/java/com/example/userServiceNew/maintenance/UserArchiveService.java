@@ -0,0 +1,206 @@
+package com.example.userServiceNew.maintenance;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Переносит пользователей с create_at старше retention из users в users_archive
+ * или в файл users-&lt;время&gt;.ndjson.gz, пачками по batch-size в отдельных транзакциях.
+ * Пачка выбирается с FOR UPDATE SKIP LOCKED, поэтому несколько экземпляров не переносят
+ * одни и те же строки. При выгрузке в файл пачка сначала записывается на диск и только потом
+ * удаляется из users: после сбоя строки могут попасть в файл дважды, но не пропадут.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.users.archive", name = "enabled", havingValue = "true")
+public class UserArchiveService implements SmartLifecycle {
+
+    private static final String SELECT_BATCH =
+            "select id, create_at from users where create_at < ? order by create_at limit ? for update skip locked";
+
+    /** Условие на create_at снаружи нужно, чтобы DELETE в секционированной таблице трогал только старые секции. */
+    private static final String DELETE_BATCH =
+            "delete from users where create_at < ? and (id, create_at) in (" + SELECT_BATCH + ") "
+                    + "returning id, name_user, email, age, create_at, update_at, version";
+
+    private static final String MOVE_TO_TABLE =
+            "with moved as (" + DELETE_BATCH + ") "
+                    + "insert into users_archive (id, name_user, email, age, create_at, update_at, version) "
+                    + "select id, name_user, email, age, create_at, update_at, version from moved returning id";
+
+    private static final RowMapper<UserDto> USER_DTO = (rs, rowNum) -> new UserDto(
+            rs.getInt("id"),
+            rs.getString("name_user"),
+            rs.getString("email"),
+            rs.getObject("age", Integer.class),
+            rs.getObject("create_at", LocalDateTime.class),
+            rs.getObject("update_at", LocalDateTime.class),
+            rs.getObject("version", Long.class));
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
+    private final UserProperties.Archive properties;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<UserPartitionMaintenance> partitionMaintenance;
+    private ScheduledExecutorService scheduler;
+
+    public UserArchiveService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              UserCache userCache, UserProperties userProperties, ObjectMapper objectMapper,
+                              ObjectProvider<UserPartitionMaintenance> partitionMaintenance) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.userCache = userCache;
+        this.properties = userProperties.getArchive();
+        this.objectMapper = objectMapper;
+        this.partitionMaintenance = partitionMaintenance;
+    }
+
+    /** @return сколько пользователей перенесено */
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        int archived = switch (properties.getTarget()) {
+            case TABLE -> moveToTable(cutoff);
+            case FILE -> exportToFile(cutoff);
+        };
+        if (archived > 0) {
+            log.info("Archived {} users created before {} to {}", archived, cutoff, properties.getTarget());
+        }
+        partitionMaintenance.ifAvailable(maintenance -> maintenance.dropEmptyPartitionsBefore(cutoff));
+        return archived;
+    }
+
+    private int moveToTable(LocalDateTime cutoff) {
+        int total = 0;
+        List<Integer> ids;
+        do {
+            ids = transactionTemplate.execute(status -> jdbcTemplate.queryForList(MOVE_TO_TABLE, Integer.class,
+                    cutoff, cutoff, properties.getBatchSize()));
+            ids.forEach(userCache::invalidate);
+            total += ids.size();
+        } while (ids.size() == properties.getBatchSize());
+        return total;
+    }
+
+    private int exportToFile(LocalDateTime cutoff) {
+        Path path = properties.getDirectory().resolve("users-" + LocalDateTime.now().format(FILE_TIME) + ".ndjson.gz");
+        try (ArchiveFile archiveFile = new ArchiveFile(path, objectMapper.writer().withRootValueSeparator("\n"))) {
+            int total = 0;
+            List<UserDto> users;
+            do {
+                users = transactionTemplate.execute(status -> {
+                    List<UserDto> batch = jdbcTemplate.query(DELETE_BATCH, USER_DTO,
+                            cutoff, cutoff, properties.getBatchSize());
+                    archiveFile.write(batch);
+                    return batch;
+                });
+                users.forEach(user -> userCache.invalidate(user.getId()));
+                total += users.size();
+            } while (users.size() == properties.getBatchSize());
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void run() {
+        try {
+            archive();
+        } catch (Exception e) {
+            log.error("Users archive failed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "users-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, 0, properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+
+    /**
+     * Файл создается под первую непустую пачку. Пачка сбрасывается на диск (fsync) внутри
+     * транзакции DELETE, до ее фиксации; ошибка записи откатывает DELETE.
+     */
+    private static class ArchiveFile implements Closeable {
+
+        private final Path path;
+        private final ObjectWriter objectWriter;
+        private FileOutputStream fileOut;
+        private SequenceWriter writer;
+
+        ArchiveFile(Path path, ObjectWriter objectWriter) {
+            this.path = path;
+            this.objectWriter = objectWriter;
+        }
+
+        void write(List<UserDto> users) {
+            if (users.isEmpty()) {
+                return;
+            }
+            try {
+                if (writer == null) {
+                    Files.createDirectories(path.getParent());
+                    fileOut = new FileOutputStream(path.toFile());
+                    writer = objectWriter.writeValues(new GZIPOutputStream(fileOut, true));
+                }
+                for (UserDto user : users) {
+                    writer.write(user);
+                }
+                writer.flush();
+                fileOut.getFD().sync();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.userServiceNew.maintenance;
+
+import com.example.userServiceNew.config.UserProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Держит готовыми помесячные секции users на months-ahead месяцев вперед, чтобы вставка
+ * не попадала в секцию по умолчанию. Сами секции создает функция users_ensure_partitions
+ * из миграции db/partitioning, она же не дает двум экземплярам создавать их одновременно.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "app.users.partitioning", name = "enabled", havingValue = "true")
+public class UserPartitionMaintenance implements SmartLifecycle {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserProperties.Partitioning properties;
+    private ScheduledExecutorService scheduler;
+
+    public UserPartitionMaintenance(JdbcTemplate jdbcTemplate, UserProperties userProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = userProperties.getPartitioning();
+    }
+
+    /** @return сколько секций создано */
+    public int ensurePartitions() {
+        Integer created = jdbcTemplate.queryForObject("select users_ensure_partitions(?, ?)", Integer.class,
+                LocalDate.now(), properties.getMonthsAhead());
+        if (created != null && created > 0) {
+            log.info("Created {} users partitions", created);
+        }
+        return created == null ? 0 : created;
+    }
+
+    /** Удаляет опустевшие после архивации секции, которые целиком раньше cutoff. */
+    public int dropEmptyPartitionsBefore(LocalDateTime cutoff) {
+        Integer dropped = jdbcTemplate.queryForObject("select users_drop_empty_partitions(?)", Integer.class, cutoff);
+        if (dropped != null && dropped > 0) {
+            log.info("Dropped {} empty users partitions before {}", dropped, cutoff);
+        }
+        return dropped == null ? 0 : dropped;
+    }
+
+    private void run() {
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            log.error("Users partition maintenance failed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "users-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, 0, properties.getInterval().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
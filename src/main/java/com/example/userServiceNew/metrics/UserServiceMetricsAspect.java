@@ -0,0 +1,53 @@
+package com.example.userServiceNew.metrics;
+
+import com.example.userServiceNew.dto.StatusResponse;
+import com.example.userServiceNew.service.ServiceResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Таймер users.service на каждый публичный метод UserCRUDService и UserBatchService.
+ * Код результата записывается в тег status: 0 или 1 по ServiceResult (или status из ответа
+ * пакетных методов), exception - если метод бросил исключение. Счетчик
+ * users_service_seconds_count{status="1"} - это число вызовов, не найденных, отклоненных или конфликтных.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class UserServiceMetricsAspect {
+
+    static final String TIMER_NAME = "users.service";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.example.userServiceNew.service.UserCRUDService.*(..))"
+            + " || execution(public * com.example.userServiceNew.service.UserBatchService.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String status = "exception";
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof ServiceResult<?> serviceResult) {
+                status = serviceResult.isOk() ? "0" : "1";
+            } else if (result instanceof StatusResponse response && response.getStatus() != null) {
+                status = String.valueOf(response.getStatus());
+            } else {
+                status = "0";
+            }
+            return result;
+        } finally {
+            sample.stop(Timer.builder(TIMER_NAME)
+                    .description("UserCRUDService/UserBatchService method latency by result status")
+                    .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("status", status)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+}
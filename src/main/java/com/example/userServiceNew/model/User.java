@@ -3,6 +3,10 @@ package com.example.userServiceNew.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import java.time.LocalDateTime;
 
@@ -13,7 +17,11 @@ import java.time.LocalDateTime;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "users_seq")
+    @GenericGenerator(name = "users_seq", type = UserIdGenerator.class, parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "users_id_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")})
     @Column(name = "id")
     private Integer id;
 
@@ -26,9 +34,26 @@ public class User {
     @Column(name = "age")
     private Integer age;
 
-    @Column(name = "create_at")
+    @Column(name = "create_at", updatable = false)
     private LocalDateTime createAt;
 
+    /** Проставляется Hibernate при INSERT и UPDATE сущности; массовые UPDATE задают его сами. */
+    @UpdateTimestamp
+    @Column(name = "update_at")
+    private LocalDateTime updateAt;
+
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    /** create_at - ключ секционирования (профиль partitioning), NULL в нем не допускается. */
+    @PrePersist
+    void defaultCreateAt() {
+        if (createAt == null) {
+            createAt = LocalDateTime.now();
+        }
+    }
+
 
 
 }
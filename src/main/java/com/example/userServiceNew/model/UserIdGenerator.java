@@ -0,0 +1,29 @@
+package com.example.userServiceNew.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Последовательность users_id_seq с оптимизатором pooled-lo: один nextval резервирует блок
+ * [value, value + allocation-size), id внутри блока выдаются в памяти без обращения к базе.
+ * Размер блока задается свойством Hibernate {@link #ALLOCATION_SIZE} (app.users.id.allocation-size)
+ * и должен совпадать с INCREMENT BY последовательности - его выставляет Flyway-колбэк afterMigrate.
+ */
+public class UserIdGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "app.users.id.allocation-size";
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        Object allocationSize = serviceRegistry.getService(ConfigurationService.class).getSettings().get(ALLOCATION_SIZE);
+        if (allocationSize != null) {
+            parameters.setProperty(INCREMENT_PARAM, allocationSize.toString());
+        }
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.userServiceNew.repository;
+
+import com.example.userServiceNew.dto.UserDto;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Доступ к таблице users через R2DBC для реактивного варианта API.
+ * Схема та же, что у сущности User; id берется из той же последовательности users_id_seq.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private static final String COLUMNS = "id, name_user, email, age, create_at, update_at, version";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<UserDto> findById(Integer id) {
+        return databaseClient.sql("select " + COLUMNS + " from users where id = :id")
+                .bind("id", id)
+                .map(ReactiveUserRepository::mapRow)
+                .one();
+    }
+
+    /** Все пользователи по возрастанию id; строки читаются из курсора порциями по fetchSize. */
+    public Flux<UserDto> findAll(int fetchSize) {
+        return databaseClient.sql("select " + COLUMNS + " from users order by id")
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(ReactiveUserRepository::mapRow)
+                .all();
+    }
+
+    /** Сохраненная строка вместе с выданным id - для Location в ответе на создание. */
+    public Mono<UserDto> insert(UserDto userDto) {
+        return databaseClient.sql("insert into users (" + COLUMNS + ") "
+                        + "values (nextval('users_id_seq'), :nameUser, :email, :age, :createAt, localtimestamp, 0) "
+                        + "returning " + COLUMNS)
+                .bind("nameUser", userDto.getNameUser())
+                .bind("email", userDto.getEmail())
+                .bind("age", userDto.getAge())
+                .bind("createAt", userDto.getCreateAt() == null ? LocalDateTime.now() : userDto.getCreateAt())
+                .map(ReactiveUserRepository::mapRow)
+                .one();
+    }
+
+    /** То же, что UserRepository.updatePartially: только заполненные поля и инкремент version. */
+    public Mono<Long> updatePartially(Integer id, UserDto changes) {
+        List<String> assignments = new ArrayList<>();
+        if (changes.getNameUser() != null) {
+            assignments.add("name_user = :nameUser");
+        }
+        if (changes.getEmail() != null) {
+            assignments.add("email = :email");
+        }
+        if (changes.getAge() != null) {
+            assignments.add("age = :age");
+        }
+        assignments.add("version = version + 1");
+        assignments.add("update_at = localtimestamp");
+        String sql = "update users set " + String.join(", ", assignments) + " where id = :id"
+                + (changes.getVersion() != null ? " and version = :version" : "");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql).bind("id", id);
+        if (changes.getNameUser() != null) {
+            spec = spec.bind("nameUser", changes.getNameUser());
+        }
+        if (changes.getEmail() != null) {
+            spec = spec.bind("email", changes.getEmail());
+        }
+        if (changes.getAge() != null) {
+            spec = spec.bind("age", changes.getAge());
+        }
+        if (changes.getVersion() != null) {
+            spec = spec.bind("version", changes.getVersion());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    public Mono<Boolean> existsById(Integer id) {
+        return databaseClient.sql("select 1 from users where id = :id")
+                .bind("id", id)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .defaultIfEmpty(Boolean.FALSE);
+    }
+
+    public Mono<Long> deleteById(Integer id) {
+        return databaseClient.sql("delete from users where id = :id")
+                .bind("id", id)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    private static UserDto mapRow(Readable row) {
+        UserDto userDto = new UserDto();
+        userDto.setId(row.get("id", Integer.class));
+        userDto.setNameUser(row.get("name_user", String.class));
+        userDto.setEmail(row.get("email", String.class));
+        userDto.setAge(row.get("age", Integer.class));
+        userDto.setCreateAt(row.get("create_at", LocalDateTime.class));
+        userDto.setUpdateAt(row.get("update_at", LocalDateTime.class));
+        userDto.setVersion(row.get("version", Long.class));
+        return userDto;
+    }
+}
@@ -1,9 +1,87 @@
 package com.example.userServiceNew.repository;
 
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.dto.UserView;
 import com.example.userServiceNew.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Объявленные здесь запросы выполняются в readOnly транзакции (если внешней нет): Hibernate
+ * не делает flush, а при включенной маршрутизации чтение уходит на реплику.
+ * Методы записи помечены {@code @Transactional} отдельно.
+ */
 @Repository
-public interface UserRepository extends JpaRepository<User, Integer> {
+@Transactional(readOnly = true)
+public interface UserRepository extends JpaRepository<User, Integer>, UserRepositoryCustom {
+
+    /**
+     * Конструкторное выражение JPQL: строка читается сразу в UserDto,
+     * без сущности User и ее снимка для dirty checking.
+     */
+    String USER_DTO = "new com.example.userServiceNew.dto.UserDto("
+            + "u.id, u.nameUser, u.email, u.age, u.createAt, u.updateAt, u.version)";
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select " + USER_DTO + " from User u where u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Integer id);
+
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select " + USER_DTO + " from User u order by u.id")
+    List<UserDto> findAllDtos();
+
+    /** Мульти-get: один SELECT ... WHERE id IN (...); порядок строк не гарантирован. */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select " + USER_DTO + " from User u where u.id in :ids")
+    List<UserDto> findDtosByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /** Только id, version и update_at: ответ на условный GET без чтения остальных колонок. */
+    @Query("select new com.example.userServiceNew.dto.UserVersion(u.id, u.version, u.updateAt) "
+            + "from User u where u.id = :id")
+    Optional<UserVersion> findVersionById(@Param("id") Integer id);
+
+    /** Keyset-страница: WHERE id > after ORDER BY id. */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select " + USER_DTO + " from User u where u.id > :after order by u.id")
+    List<UserDto> findDtosAfter(@Param("after") Integer after, Pageable pageable);
+
+    /**
+     * Keyset-страница пользователей, созданных в [from, to). При секционировании по create_at
+     * (профиль partitioning) PostgreSQL читает только секции, пересекающие диапазон.
+     */
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true"))
+    @Query("select " + USER_DTO + " from User u "
+            + "where u.createAt >= :from and u.createAt < :to and u.id > :after order by u.id")
+    List<UserDto> findDtosCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                         @Param("after") Integer after, Pageable pageable);
+
+    /** Поиск по уникальному индексу ux_users_email. */
+    Optional<UserView> findViewByEmail(String email);
+
+    /** LIKE 'prefix%' по индексу idx_users_name_prefix (text_pattern_ops, см. V2__users_lookup_indexes.sql) с фильтром по возрасту. */
+    List<UserView> findByNameUserStartingWithAndAgeBetweenOrderByNameUserAsc(
+            String prefix, Integer minAge, Integer maxAge, Pageable pageable);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    /** DELETE ... WHERE id = ? без предварительной загрузки сущности. */
+    @Transactional
+    @Modifying
+    @Query("delete from User u where u.id = :id")
+    int removeById(@Param("id") Integer id);
 }
@@ -0,0 +1,26 @@
+package com.example.userServiceNew.repository;
+
+import com.example.userServiceNew.dto.UserDto;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+public interface UserRepositoryCustom {
+
+    /**
+     * Forward-only поток всех пользователей по возрастанию id, прямо в UserDto.
+     * Сущности не создаются и не попадают в persistence context,
+     * поэтому память не растет вместе с таблицей. Вызывать внутри транзакции
+     * и закрывать поток.
+     */
+    Stream<UserDto> streamAllOrderById(int fetchSize);
+
+    /**
+     * Один UPDATE только по заполненным полям changes и инкремент version.
+     * Если в changes передана version, строка обновляется только при совпадении.
+     *
+     * @return число измененных строк: 0 - пользователя нет или версия устарела
+     */
+    @Transactional
+    int updatePartially(Integer id, UserDto changes);
+}
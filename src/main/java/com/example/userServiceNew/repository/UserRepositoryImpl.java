@@ -0,0 +1,54 @@
+package com.example.userServiceNew.repository;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<UserDto> streamAllOrderById(int fetchSize) {
+        return entityManager.createQuery("select " + UserRepository.USER_DTO + " from User u order by u.id",
+                        UserDto.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    public int updatePartially(Integer id, UserDto changes) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> user = update.from(User.class);
+        if (changes.getNameUser() != null) {
+            update.set(user.<String>get("nameUser"), changes.getNameUser());
+        }
+        if (changes.getEmail() != null) {
+            update.set(user.<String>get("email"), changes.getEmail());
+        }
+        if (changes.getAge() != null) {
+            update.set(user.<Integer>get("age"), changes.getAge());
+        }
+        update.set(user.<Long>get("version"), cb.sum(user.<Long>get("version"), 1L));
+        update.set(user.<LocalDateTime>get("updateAt"), LocalDateTime.now());
+
+        Predicate where = cb.equal(user.get("id"), id);
+        if (changes.getVersion() != null) {
+            where = cb.and(where, cb.equal(user.get("version"), changes.getVersion()));
+        }
+        update.where(where);
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
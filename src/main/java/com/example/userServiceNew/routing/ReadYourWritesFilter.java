@@ -0,0 +1,71 @@
+package com.example.userServiceNew.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Read-your-writes: запрос на запись ставит клиенту cookie на stickyWindow,
+ * и пока она жива, чтение этого клиента идет в primary, а не в отстающую реплику.
+ * Состояние хранится у клиента, поэтому работает при нескольких экземплярах сервиса.
+ */
+@RequiredArgsConstructor
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "users-read-primary";
+
+    /** POST, которые только читают: id в теле вместо слишком длинного query string. */
+    private static final Set<String> READ_ONLY_POSTS = Set.of("/users/by-ids");
+
+    private final Duration stickyWindow;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (isWrite(request)) {
+            Cookie cookie = new Cookie(COOKIE_NAME, "1");
+            cookie.setMaxAge((int) Math.max(1, stickyWindow.toSeconds()));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        } else if (!hasStickyCookie(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try (ReplicaRoutingContext.Scope ignored = ReplicaRoutingContext.forcePrimary()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /** Запрос меняет данные: все, кроме GET, HEAD, OPTIONS и читающих POST. */
+    public static boolean isWrite(HttpServletRequest request) {
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        if (method == HttpMethod.POST
+                && READ_ONLY_POSTS.contains(request.getRequestURI().substring(request.getContextPath().length()))) {
+            return false;
+        }
+        return method != HttpMethod.GET && method != HttpMethod.HEAD && method != HttpMethod.OPTIONS;
+    }
+
+    private static boolean hasStickyCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
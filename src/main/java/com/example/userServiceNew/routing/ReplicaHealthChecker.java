@@ -0,0 +1,74 @@
+package com.example.userServiceNew.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически проверяет соединение с репликой. Пока реплика недоступна,
+ * чтение идет в primary; после восстановления возвращается на реплику.
+ */
+@Slf4j
+public class ReplicaHealthChecker implements SmartLifecycle {
+
+    private final DataSource replica;
+    private final Duration interval;
+    private final Duration timeout;
+    private volatile boolean healthy = true;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaHealthChecker(DataSource replica, ReplicaRoutingProperties properties) {
+        this.replica = replica;
+        this.interval = properties.getHealthCheckInterval();
+        this.timeout = properties.getHealthCheckTimeout();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void check() {
+        boolean valid;
+        try (Connection connection = replica.getConnection()) {
+            valid = connection.isValid((int) Math.max(1, timeout.toSeconds()));
+        } catch (Exception e) {
+            log.debug("Replica health check failed", e);
+            valid = false;
+        }
+        if (valid != healthy) {
+            if (valid) {
+                log.info("Replica is available again, read-only transactions go back to it");
+            } else {
+                log.warn("Replica is unavailable, read-only transactions fall back to primary");
+            }
+            healthy = valid;
+        }
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return scheduler != null;
+    }
+}
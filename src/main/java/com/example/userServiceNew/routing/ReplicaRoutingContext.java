@@ -0,0 +1,60 @@
+package com.example.userServiceNew.routing;
+
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Принудительное чтение с primary для текущего потока, поверх маршрутизации по readOnly.
+ */
+public final class ReplicaRoutingContext {
+
+    private static final ThreadLocal<Boolean> PRIMARY_FORCED = new ThreadLocal<>();
+
+    private ReplicaRoutingContext() {
+    }
+
+    public static boolean isPrimaryForced() {
+        return PRIMARY_FORCED.get() != null;
+    }
+
+    /** Чтение с primary до close(); вложенный вызов не снимает внешний. */
+    public static Scope forcePrimary() {
+        if (isPrimaryForced()) {
+            return () -> {
+            };
+        }
+        PRIMARY_FORCED.set(Boolean.TRUE);
+        return PRIMARY_FORCED::remove;
+    }
+
+    public static <T> T callOnPrimary(Supplier<T> action) {
+        try (Scope ignored = forcePrimary()) {
+            return action.get();
+        }
+    }
+
+    public static void runOnPrimary(Runnable action) {
+        callOnPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Executor, задача которого читает с primary, если primary был принудительно выбран
+     * в потоке, отдавшем задачу (например, ReadYourWritesFilter у недавно писавшего клиента).
+     */
+    public static Executor inheriting(Executor executor) {
+        return task -> executor.execute(isPrimaryForced() ? () -> runOnPrimary(task) : task);
+    }
+
+    /** Executor, задачи которого читают только с primary. */
+    public static Executor onPrimary(Executor executor) {
+        return task -> executor.execute(() -> runOnPrimary(task));
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userServiceNew.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Отправляет транзакции {@code @Transactional(readOnly = true)} в пул реплики, остальное - в primary.
+ * Оборачивается в LazyConnectionDataSourceProxy: соединение берется при первом запросе,
+ * когда флаг readOnly транзакции уже выставлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final BooleanSupplier replicaHealthy;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaHealthy) {
+        this.replicaHealthy = replicaHealthy;
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !ReplicaRoutingContext.isPrimaryForced()
+                && replicaHealthy.getAsBoolean()) {
+            return REPLICA;
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.userServiceNew.routing;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Маршрутизация чтения на реплику. Пул реплики настраивается отдельно, в app.datasource.replica.
+ */
+@Data
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class ReplicaRoutingProperties {
+
+    /** true - транзакции readOnly идут в пул реплики, остальные в primary. */
+    private boolean enabled = false;
+    /** Как часто проверяется доступность реплики. */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    /** Сколько ждать ответа реплики при проверке. */
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+    /** Сколько после своей записи клиент читает с primary, чтобы не увидеть отставшую реплику. */
+    private Duration stickyWindow = Duration.ofSeconds(5);
+    /**
+     * true - промахи кэша пользователей загружаются только с primary. Уведомление об изменении приходит
+     * при фиксации на primary, раньше, чем реплика применит изменение, поэтому строка, загруженная
+     * с отстающей реплики после сброса, осталась бы в кэше устаревшей до конца TTL.
+     * false - загрузка с реплики; имеет смысл, только если устаревание на TTL допустимо.
+     * Без кэша getById читает с реплики независимо от этого свойства.
+     */
+    private boolean cacheLoadsOnPrimary = true;
+}
@@ -1,15 +1,14 @@
 package com.example.userServiceNew.service;
 
-import com.example.userServiceNew.dto.Response;
-import com.example.userServiceNew.dto.UserDto;
-import com.example.userServiceNew.dto.UserResponseDto;
-
-import java.util.Collection;
+import com.example.userServiceNew.dto.UserPageDto;
 
+/**
+ * Ожидаемые исходы возвращаются в {@link ServiceResult}; исключение означает сбой.
+ */
 public interface CRUDServiceUser<T> {
-    UserResponseDto getById(Integer id);
-    Collection<UserResponseDto> getAll();
-    Response create(T item);
-    Response update(Integer id, T item);
-    Response delete(Integer id);
+    ServiceResult<T> getById(Integer id);
+    UserPageDto getAll();
+    ServiceResult<T> create(T item);
+    ServiceResult<Void> update(Integer id, T item);
+    ServiceResult<Void> delete(Integer id);
 }
@@ -0,0 +1,16 @@
+package com.example.userServiceNew.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Неблокирующий аналог {@link CRUDServiceUser}: ожидаемые исходы - в {@link ServiceResult},
+ * ошибка в Mono означает сбой.
+ */
+public interface ReactiveCRUDServiceUser<T> {
+    Mono<ServiceResult<T>> getById(Integer id);
+    Flux<T> getAll();
+    Mono<ServiceResult<T>> create(T item);
+    Mono<ServiceResult<Void>> update(Integer id, T item);
+    Mono<ServiceResult<Void>> delete(Integer id);
+}
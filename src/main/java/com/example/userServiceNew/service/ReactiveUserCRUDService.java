@@ -0,0 +1,76 @@
+package com.example.userServiceNew.service;
+
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Реактивный вариант {@link UserCRUDService} с теми же исходами {@link ServiceResult}.
+ * Ошибки базы не превращаются здесь в ответ, а уходят в ReactiveUserExceptionHandler,
+ * который отвечает теми же кодами и сообщениями, что и сервлетный API.
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveUserCRUDService implements ReactiveCRUDServiceUser<UserDto> {
+
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final UserProperties userProperties;
+
+    @Override
+    public Mono<ServiceResult<UserDto>> getById(Integer id) {
+        return reactiveUserRepository.findById(id)
+                .map(ServiceResult::ok)
+                .defaultIfEmpty(ServiceResult.notFound(UserCRUDService.USER_NOT_FOUND));
+    }
+
+    @Override
+    public Flux<UserDto> getAll() {
+        return reactiveUserRepository.findAll(userProperties.getStream().getFetchSize());
+    }
+
+    @Override
+    public Mono<ServiceResult<UserDto>> create(UserDto userDto) {
+        if(userDto.getNameUser() == null || userDto.getEmail() == null || userDto.getAge() == null){
+            return Mono.just(ServiceResult.invalid(List.of("Не все данные были заполнены")));
+        }
+        log.info("Create");
+        return reactiveUserRepository.insert(userDto)
+                .map(ServiceResult::ok);
+    }
+
+    @Override
+    public Mono<ServiceResult<Void>> update(Integer id, UserDto userDto) {
+        log.info("Update");
+        return reactiveUserRepository.updatePartially(id, userDto)
+                .flatMap(rows -> {
+                    if(rows == 1){
+                        return Mono.just(ServiceResult.<Void>ok(null));
+                    }
+                    Mono<Boolean> conflict = userDto.getVersion() == null
+                            ? Mono.just(false)
+                            : reactiveUserRepository.existsById(id);
+                    return conflict.map(exists -> exists
+                            ? ServiceResult.<Void>conflict("Пользователь был изменен другим запросом")
+                            : ServiceResult.<Void>notFound(UserCRUDService.USER_NOT_FOUND));
+                });
+    }
+
+    @Override
+    public Mono<ServiceResult<Void>> delete(Integer id) {
+        log.info("Delete");
+        return reactiveUserRepository.deleteById(id)
+                .map(rows -> rows == 1
+                        ? ServiceResult.<Void>ok(null)
+                        : ServiceResult.<Void>notFound(UserCRUDService.USER_NOT_FOUND));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.userServiceNew.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Исход операции сервиса. Ожидаемые исходы - пользователя нет, данные неверны, конфликт -
+ * возвращаются значением, без исключений и стектрейсов. Исключения остаются для сбоев,
+ * их переводит в HTTP-ответ UserExceptionHandler.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ServiceResult<T> {
+
+    public enum Outcome {
+        OK,
+        NOT_FOUND,
+        INVALID,
+        CONFLICT
+    }
+
+    private final Outcome outcome;
+    private final T value;
+    private final List<String> errors;
+
+    public static <T> ServiceResult<T> ok(T value) {
+        return new ServiceResult<>(Outcome.OK, value, null);
+    }
+
+    public static <T> ServiceResult<T> notFound(String error) {
+        return new ServiceResult<>(Outcome.NOT_FOUND, null, List.of(error));
+    }
+
+    public static <T> ServiceResult<T> invalid(List<String> errors) {
+        return new ServiceResult<>(Outcome.INVALID, null, errors);
+    }
+
+    public static <T> ServiceResult<T> conflict(String error) {
+        return new ServiceResult<>(Outcome.CONFLICT, null, List.of(error));
+    }
+
+    public boolean isOk() {
+        return outcome == Outcome.OK;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.userServiceNew.service;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Массовые операции над пользователями. Элементы пишутся порциями по
+ * app.users.batch.chunk-size, каждая порция в своей транзакции, так что
+ * Hibernate отправляет их JDBC-батчами, а persistence context не растет.
+ * Если порцию откатил конфликт одного элемента, ее элементы повторяются по одному,
+ * так что результат каждого элемента отражает его собственную судьбу.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBatchService {
+
+    private final UserRepository userRepository;
+    private final UserProperties userProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
+    private final Validator validator;
+
+    public BatchResponse createAll(Iterator<UserDto> users) {
+        List<Response> results = new ArrayList<>();
+        forEachChunk(users, chunk -> results.addAll(createChunk(chunk)));
+        return toBatchResponse(results, "Пользователи сохранены",
+                "Не все пользователи были сохранены");
+    }
+
+    public BatchResponse updateAll(Iterator<UserDto> users) {
+        List<Response> results = new ArrayList<>();
+        forEachChunk(users, chunk -> results.addAll(updateChunk(chunk)));
+        return toBatchResponse(results, "Пользователи обновлены",
+                "Не все пользователи были обновлены");
+    }
+
+    public BatchResponse deleteAll(Iterator<Integer> ids) {
+        List<Response> results = new ArrayList<>();
+        forEachChunk(ids, chunk -> results.addAll(deleteChunk(chunk)));
+        return toBatchResponse(results, "Пользователи удалены",
+                "Не все пользователи были удалены");
+    }
+
+    private List<Response> createChunk(List<UserDto> chunk) {
+        Response[] results = new Response[chunk.size()];
+        List<User> valid = new ArrayList<>(chunk.size());
+        List<Integer> positions = new ArrayList<>(chunk.size());
+        Set<String> emails = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserDto userDto = chunk.get(i);
+            List<String> errors = userDto == null ? List.of("Не все данные были заполнены")
+                    : validate(userDto, UserDto.Create.class);
+            if (errors.isEmpty() && (userCache.emailOwner(userDto.getEmail()) != null || !emails.add(userDto.getEmail()))) {
+                errors = List.of("Пользователь с таким email уже существует");
+            }
+            if (!errors.isEmpty()) {
+                results[i] = new Response(1,
+                        "Произошла ошибка при попытке сохранения пользователя",
+                        errors);
+                continue;
+            }
+            User user = UserCRUDService.mapToEntity(userDto);
+            user.setId(null);
+            valid.add(user);
+            positions.add(i);
+        }
+        try {
+            if (!valid.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> userRepository.saveAll(valid));
+            }
+            positions.forEach(i -> results[i] = new Response(0, "Пользователь сохранен", null));
+        } catch (Exception e) {
+            if (positions.size() > 1 && isItemConflict(e)) {
+                log.warn("Batch create chunk failed, retrying {} items one by one", positions.size(), e);
+                positions.forEach(i -> results[i] = createChunk(Collections.singletonList(chunk.get(i))).get(0));
+            } else {
+                log.warn("Batch create chunk failed", e);
+                positions.forEach(i -> results[i] = failure(
+                        "Произошла ошибка при попытке сохранения пользователя", e));
+            }
+        }
+        return List.of(results);
+    }
+
+    private List<Response> updateChunk(List<UserDto> chunk) {
+        Response[] results = new Response[chunk.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> ids = chunk.stream()
+                        .filter(userDto -> userDto != null && userDto.getId() != null)
+                        .map(UserDto::getId)
+                        .collect(Collectors.toSet());
+                Map<Integer, User> existing = userRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()));
+                for (int i = 0; i < chunk.size(); i++) {
+                    UserDto userDto = chunk.get(i);
+                    User user = userDto == null || userDto.getId() == null ? null : existing.get(userDto.getId());
+                    if (user == null) {
+                        results[i] = new Response(1,
+                                "Обновление пользователя не возможно",
+                                List.of("Пользователя с таким id не существует"));
+                        continue;
+                    }
+                    List<String> errors = validate(userDto, UserDto.Update.class);
+                    Integer emailOwner = userDto.getEmail() == null ? null : userCache.emailOwner(userDto.getEmail());
+                    if (errors.isEmpty() && emailOwner != null && !emailOwner.equals(user.getId())) {
+                        errors = List.of("Пользователь с таким email уже существует");
+                    }
+                    if (!errors.isEmpty()) {
+                        results[i] = new Response(1, "Обновление пользователя не возможно", errors);
+                        continue;
+                    }
+                    if (userDto.getVersion() != null && !userDto.getVersion().equals(user.getVersion())) {
+                        results[i] = new Response(1,
+                                "Обновление пользователя не возможно",
+                                List.of("Пользователь был изменен другим запросом"));
+                        continue;
+                    }
+                    // как PATCH в updatePartially: незаполненные поля не меняются
+                    if (userDto.getNameUser() != null) {
+                        user.setNameUser(userDto.getNameUser());
+                    }
+                    if (userDto.getEmail() != null) {
+                        user.setEmail(userDto.getEmail());
+                    }
+                    if (userDto.getAge() != null) {
+                        user.setAge(userDto.getAge());
+                    }
+                    results[i] = new Response(0, "Пользователь обновлен", null);
+                }
+            });
+            writtenIds(chunk.stream().map(userDto -> userDto == null ? null : userDto.getId()).toList(), results)
+                    .forEach(userCache::invalidate);
+        } catch (Exception e) {
+            if (chunk.size() > 1 && isItemConflict(e)) {
+                log.warn("Batch update chunk failed, retrying {} items one by one", chunk.size(), e);
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = updateChunk(Collections.singletonList(chunk.get(i))).get(0);
+                }
+            } else {
+                log.warn("Batch update chunk failed", e);
+                Arrays.fill(results, failure("Произошла ошибка при попытке обновления пользователя", e));
+            }
+        }
+        return List.of(results);
+    }
+
+    private List<Response> deleteChunk(List<Integer> chunk) {
+        Response[] results = new Response[chunk.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<Integer> existing = new HashSet<>(userRepository.findExistingIds(chunk));
+                if (!existing.isEmpty()) {
+                    userRepository.deleteAllByIdInBatch(existing);
+                }
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[i] = existing.contains(chunk.get(i))
+                            ? new Response(0, "Пользователь удален", null)
+                            : new Response(1, "Удаление пользователя не возможно",
+                                    List.of("Пользователя с таким id не существует"));
+                }
+            });
+            writtenIds(chunk, results).forEach(userCache::invalidate);
+        } catch (Exception e) {
+            if (chunk.size() > 1 && isItemConflict(e)) {
+                log.warn("Batch delete chunk failed, retrying {} items one by one", chunk.size(), e);
+                for (int i = 0; i < results.length; i++) {
+                    results[i] = deleteChunk(Collections.singletonList(chunk.get(i))).get(0);
+                }
+            } else {
+                log.warn("Batch delete chunk failed", e);
+                Arrays.fill(results, failure("Прогзошла ошибка пр попытке удаления пользователя", e));
+            }
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Ошибка, вызванная одним элементом порции (email, уже занятый в базе, или параллельное изменение):
+     * порция откатывается целиком, и ее элементы повторяются по одному, чтобы остальные записались.
+     * Прочие ошибки (база недоступна) повторять бесполезно, и порция отклоняется целиком.
+     */
+    private static boolean isItemConflict(Exception e) {
+        return e instanceof DataIntegrityViolationException || e instanceof OptimisticLockingFailureException;
+    }
+
+    /** Ответ для элемента, запись которого упала: причина в тех же формулировках, что у UserExceptionHandler. */
+    private static Response failure(String message, Exception e) {
+        String reason;
+        if (e instanceof OptimisticLockingFailureException) {
+            reason = "Пользователь был изменен другим запросом";
+        } else if (e instanceof DataIntegrityViolationException) {
+            reason = "Данные пользователя конфликтуют с существующими";
+        } else if (e instanceof TransientDataAccessException || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException) {
+            reason = "Сервис временно недоступен";
+        } else {
+            reason = "Внутренняя ошибка сервера";
+        }
+        return new Response(1, message, List.of(reason));
+    }
+
+    /** id элементов порции, которые были успешно записаны. */
+    private static List<Integer> writtenIds(List<Integer> ids, Response[] results) {
+        List<Integer> written = new ArrayList<>(ids.size());
+        for (int i = 0; i < results.length; i++) {
+            if (results[i].getStatus() == 0) {
+                written.add(ids.get(i));
+            }
+        }
+        return written;
+    }
+
+    private <T> void forEachChunk(Iterator<T> items, Consumer<List<T>> action) {
+        int chunkSize = Math.max(1, userProperties.getBatch().getChunkSize());
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (items.hasNext()) {
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                action.accept(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            action.accept(chunk);
+        }
+    }
+
+    private static BatchResponse toBatchResponse(List<Response> results, String okMessage, String errorMessage) {
+        boolean allOk = results.stream().allMatch(r -> r.getStatus() == 0);
+        log.info("Batch processed {} items", results.size());
+        return new BatchResponse(allOk ? 0 : 1, allOk ? okMessage : errorMessage, results);
+    }
+
+    private List<String> validate(UserDto userDto, Class<?> group) {
+        return validator.validate(userDto, group).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+}
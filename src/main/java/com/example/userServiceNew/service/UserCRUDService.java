@@ -1,17 +1,32 @@
 package com.example.userServiceNew.service;
 
-import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.coalescing.UserLookupCoalescer;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.CacheStatsDto;
 import com.example.userServiceNew.dto.UserDto;
-import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.dto.UserView;
 import com.example.userServiceNew.model.User;
 import com.example.userServiceNew.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collection;
-import java.util.Collections;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -19,85 +34,210 @@ import java.util.List;
 public class UserCRUDService implements CRUDServiceUser<UserDto>{
 
     private final UserRepository userRepository;
+    private final UserProperties userProperties;
+    private final UserCache userCache;
+    private final ObjectProvider<UserLookupCoalescer> lookupCoalescer;
 
+    public static final String USER_NOT_FOUND = "Пользователя с таким id не существует";
+    public static final String EMAIL_TAKEN = "Пользователь с таким email уже существует";
+
+    /**
+     * Промах кэша читается по первичному ключу, а при app.users.coalescing.enabled
+     * склеивается с одновременными промахами по другим id в один запрос.
+     */
     @Override
-    public UserResponseDto getById(Integer id) {
-        try{
-            User user = userRepository.findById(id).orElseThrow();
-            UserDto userDto = mapToDto(user);
-            return new UserResponseDto(0,userDto,null);
-        }catch(Exception e){
-            return new UserResponseDto(1,null, List.of(e.toString()));
-        }
+    public ServiceResult<UserDto> getById(Integer id) {
+        UserLookupCoalescer coalescer = lookupCoalescer.getIfAvailable();
+        UserDto userDto = coalescer != null ? coalescer.load(id, userCache)
+                : userCache.get(id, key -> userRepository.findDtoById(key).orElse(null));
+        return userDto == null ? ServiceResult.notFound(USER_NOT_FOUND) : ServiceResult.ok(userDto);
+    }
 
+    /**
+     * Мульти-get: закэшированные пользователи берутся из кэша, остальные - одним SELECT ... WHERE id IN (...).
+     * Порядок - как в ids, повторы схлопываются, несуществующие id пропускаются.
+     * Прочитанные из базы пользователи в кэш не кладутся: он заполняется только через getById.
+     */
+    public ServiceResult<UserPageDto> getByIds(List<Integer> ids) {
+        int maxIds = userProperties.getPage().getMaxLimit();
+        if (ids.isEmpty() || ids.size() > maxIds || ids.stream().anyMatch(Objects::isNull)) {
+            return ServiceResult.invalid(List.of("Нужно передать от 1 до " + maxIds + " id"));
+        }
+        Set<Integer> distinct = new LinkedHashSet<>(ids);
+        Map<Integer, UserDto> found = new HashMap<>(userCache.getAllPresent(distinct));
+        List<Integer> missing = distinct.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            userRepository.findDtosByIdIn(missing).forEach(userDto -> found.put(userDto.getId(), userDto));
+        }
+        List<UserDto> users = distinct.stream().map(found::get).filter(Objects::nonNull).toList();
+        return ServiceResult.ok(new UserPageDto(0, users, null, null));
     }
 
-    @Override
-    public Collection<UserResponseDto> getAll() {
+    /**
+     * Версия пользователя для условного GET: из кэша, иначе узким запросом по первичному ключу.
+     * Ошибка чтения не мешает обычному GET, поэтому превращается в пустой результат.
+     */
+    public Optional<UserVersion> getVersion(Integer id) {
         try{
-            return userRepository.findAll().stream()
-                    .map(user -> {
-                        UserDto userDto = mapToDto(user);
-                        return new UserResponseDto(0, userDto,null);
-                    })
-                    .toList();
+            UserDto cached = userCache.getIfPresent(id);
+            if(cached != null){
+                return Optional.of(new UserVersion(cached.getId(), cached.getVersion(), cached.getUpdateAt()));
+            }
+            return userRepository.findVersionById(id);
         }catch (Exception e){
-            return Collections.emptyList();
+            log.warn("Failed to read version of user {}", id, e);
+            return Optional.empty();
         }
+    }
+
+    /**
+     * Первая страница {@link #getPage} с лимитом по умолчанию и nextCursor, а не вся таблица:
+     * дальше - по курсору, все строки сразу - GET /users/stream.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public UserPageDto getAll() {
+        return getPage(null, null);
+    }
+
+    @Transactional(readOnly = true)
+    public ServiceResult<UserDto> getByEmail(String email) {
+        return userRepository.findViewByEmail(email)
+                .map(view -> ServiceResult.ok(mapToDto(view)))
+                .orElseGet(() -> ServiceResult.notFound("Пользователя с таким email не существует"));
+    }
+
+    /**
+     * Поиск по префиксу имени и диапазону возраста. Границы возраста необязательны.
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto search(String namePrefix, Integer minAge, Integer maxAge, Integer limit) {
+        UserProperties.Page page = userProperties.getPage();
+        int size = limit == null ? page.getSearchLimit() : Math.max(1, Math.min(limit, page.getMaxLimit()));
+        List<UserDto> users = userRepository.findByNameUserStartingWithAndAgeBetweenOrderByNameUserAsc(
+                        namePrefix == null ? "" : namePrefix,
+                        minAge == null ? 0 : minAge,
+                        maxAge == null ? Integer.MAX_VALUE : maxAge,
+                        PageRequest.of(0, size))
+                .stream()
+                .map(UserCRUDService::mapToDto)
+                .toList();
+        return new UserPageDto(0, users, null, null);
+    }
+
+    /**
+     * Keyset-пагинация по id: WHERE id > after ORDER BY id LIMIT limit + 1.
+     * Лишняя строка нужна только чтобы понять, есть ли следующая страница.
+     */
+    @Transactional(readOnly = true)
+    public UserPageDto getPage(Integer after, Integer limit) {
+        UserProperties.Page page = userProperties.getPage();
+        int size = limit == null ? page.getDefaultLimit() : Math.max(1, Math.min(limit, page.getMaxLimit()));
+        List<UserDto> users = userRepository.findDtosAfter(after == null ? 0 : after, PageRequest.of(0, size + 1));
+        return toPage(users, size);
+    }
+
+    /**
+     * Пользователи, созданные в [from, to), постранично по id, как {@link #getPage}.
+     */
+    @Transactional(readOnly = true)
+    public ServiceResult<UserPageDto> getCreatedBetween(LocalDateTime from, LocalDateTime to,
+                                                        Integer after, Integer limit) {
+        if (!from.isBefore(to)) {
+            return ServiceResult.invalid(List.of("createdFrom должен быть раньше createdTo"));
+        }
+        UserProperties.Page page = userProperties.getPage();
+        int size = limit == null ? page.getDefaultLimit() : Math.max(1, Math.min(limit, page.getMaxLimit()));
+        List<UserDto> users = userRepository.findDtosCreatedBetween(
+                from, to, after == null ? 0 : after, PageRequest.of(0, size + 1));
+        return ServiceResult.ok(toPage(users, size));
+    }
 
+    /** Из size + 1 строк: страница из size и курсор, если лишняя строка нашлась. */
+    private static UserPageDto toPage(List<UserDto> users, int size) {
+        boolean hasNext = users.size() > size;
+        List<UserDto> userDtos = hasNext ? users.subList(0, size) : users;
+        Integer nextCursor = hasNext ? userDtos.get(size - 1).getId() : null;
+        return new UserPageDto(0, userDtos, nextCursor, null);
     }
 
+    /**
+     * Отдает всех пользователей в consumer по одному, не собирая их в список.
+     * Транзакция держит открытым курсор, пока consumer пишет в ответ.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<UserDto> consumer) {
+        try (Stream<UserDto> users = userRepository.streamAllOrderById(userProperties.getStream().getFetchSize())) {
+            users.forEach(consumer);
+        }
+    }
+
+    /**
+     * id из DTO не используется: новый пользователь всегда получает id из последовательности.
+     * Email, уже известный по кэшу, отклоняется без обращения к базе.
+     */
     @Override
-    public Response create(UserDto userDto) {
-        try{
-            if(userDto.getNameUser() != null && userDto.getEmail() != null &&
-                    userDto.getAge() != null){
-                log.info("Create");
-                userRepository.save(mapToEntity(userDto));
-                return new Response(0,"Пользователь сохранен",null);
-            }
-        }catch (Exception e){
-            return new Response(1,
-                    "Произошла ошибка при попытке сохранения пользователя",
-                    List.of(e.toString()));
+    public ServiceResult<UserDto> create(UserDto userDto) {
+        if (userDto.getNameUser() == null || userDto.getEmail() == null || userDto.getAge() == null) {
+            return ServiceResult.invalid(List.of("Не все данные были заполнены"));
+        }
+        if (isEmailTaken(null, userDto.getEmail())) {
+            return ServiceResult.conflict(EMAIL_TAKEN);
         }
-        return new Response(1,
-                "Произошла ошибка при попытке сохранения пользователя",
-                List.of("Не все данные были заполнены"));
+        log.info("Create");
+        User user = mapToEntity(userDto);
+        user.setId(null);
+        UserDto created = mapToDto(userRepository.save(user));
+        userCache.put(created);
+        return ServiceResult.ok(created);
     }
 
+    /**
+     * Частичное обновление: один UPDATE только по заполненным полям DTO.
+     * createAt не меняется; если передана version, чужие изменения не затираются.
+     */
     @Override
-    public Response update(Integer id, UserDto userDto) {
-        try {
-            log.info("Update");
-            userDto.setId(id);
-            userRepository.save(mapToEntity(userDto));
-            return new Response(0,"Пользователь обновлен",null);
-        }catch (Exception e){
-            return new Response(1,
-                    "Произошла ошибка при попытке обновления пользователя",
-                    List.of(e.toString()));
+    public ServiceResult<Void> update(Integer id, UserDto userDto) {
+        if (isEmailTaken(id, userDto.getEmail())) {
+            return ServiceResult.conflict(EMAIL_TAKEN);
+        }
+        log.info("Update");
+        if (userRepository.updatePartially(id, userDto) == 1) {
+            userCache.invalidate(id);
+            return ServiceResult.ok(null);
+        }
+        if (userDto.getVersion() != null && userRepository.existsById(id)) {
+            userCache.invalidate(id);
+            return ServiceResult.conflict("Пользователь был изменен другим запросом");
         }
+        return ServiceResult.notFound(USER_NOT_FOUND);
     }
 
     @Override
-    public Response delete(Integer id) {
-        try {
-            if(userRepository.findById(id).isPresent()){
-                log.info("Delete");
-                userRepository.deleteById(id);
-                return new Response(0,"Пользователь удален", null);
-            }
-        }catch (Exception e){
-            return new Response(1,
-                    "Прогзошла ошибка пр попытке удаления пользователя",
-                    List.of(e.toString()));
+    public ServiceResult<Void> delete(Integer id) {
+        log.info("Delete");
+        if (userRepository.removeById(id) == 1) {
+            userCache.invalidate(id);
+            return ServiceResult.ok(null);
+        }
+        return ServiceResult.notFound(USER_NOT_FOUND);
+    }
+
+    /**
+     * Занят ли email другим пользователем, по данным кэша; в базу не ходит.
+     * false не гарантирует, что email свободен - окончательно это проверит уникальный индекс.
+     */
+    public boolean isEmailTaken(Integer id, String email) {
+        if (email == null) {
+            return false;
         }
-        return new Response(1,
-                "Удаление пользователя не возможно",
-                List.of("Пользователя с таким id не существует"));
+        Integer owner = userCache.emailOwner(email);
+        return owner != null && !owner.equals(id);
     }
 
+    public CacheStatsDto getCacheStats() {
+        return userCache.stats();
+    }
 
     public static User mapToEntity(UserDto userDto){
         User user = new User();
@@ -116,6 +256,20 @@ public class UserCRUDService implements CRUDServiceUser<UserDto>{
         userDto.setEmail(user.getEmail());
         userDto.setAge(user.getAge());
         userDto.setCreateAt(user.getCreateAt());
+        userDto.setUpdateAt(user.getUpdateAt());
+        userDto.setVersion(user.getVersion());
+        return userDto;
+    }
+
+    public static UserDto mapToDto(UserView view){
+        UserDto userDto = new UserDto();
+        userDto.setId(view.getId());
+        userDto.setNameUser(view.getNameUser());
+        userDto.setEmail(view.getEmail());
+        userDto.setAge(view.getAge());
+        userDto.setCreateAt(view.getCreateAt());
+        userDto.setUpdateAt(view.getUpdateAt());
+        userDto.setVersion(view.getVersion());
         return userDto;
     }
 }
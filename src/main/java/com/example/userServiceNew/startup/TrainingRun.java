@@ -0,0 +1,50 @@
+package com.example.userServiceNew.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Тренировочный запуск для CDS-архива (профиль Maven cds): после старта выполняет один
+ * GET /users?limit=1, чтобы в архив попали и классы первого запроса (MVC, Jackson, Hibernate),
+ * и завершает JVM - архив пишется при выходе (-XX:ArchiveClassesAtExit).
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.startup", name = "training-run", havingValue = "true")
+public class TrainingRun implements ApplicationListener<ApplicationReadyEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (event.getApplicationContext() instanceof WebServerApplicationContext context) {
+            firstRequest(context.getWebServer().getPort());
+        }
+        log.info("Training run finished, exiting");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+    private static void firstRequest(int port) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users?limit=1"))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        try {
+            HttpResponse<Void> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.discarding());
+            log.info("Training request answered {}", response.statusCode());
+        } catch (IOException e) {
+            log.warn("Training request failed, archive will miss request classes", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.userServiceNew.startup;
+
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.dto.IngestionStatusDto;
+import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.ingestion.PendingUser;
+import com.example.userServiceNew.model.UserIdGenerator;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Подсказки для native image: то, что AOT не находит сам.
+ * <p>
+ * Контроллеры объявляют ответ как StatusResponse, поэтому конкретные DTO, которые Jackson
+ * сериализует по рефлексии, перечислены явно; PendingUser пишется в журнал отложенной записи.
+ * Генератор id Hibernate создает по имени класса из @GenericGenerator.
+ * Миграции из db/partitioning Flyway ищет сканированием classpath, а Spring Boot
+ * регистрирует только путь по умолчанию db/migration.
+ */
+public class UserRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                UserDto.class, UserPageDto.class, UserResponseDto.class, Response.class, BatchResponse.class,
+                IngestionStatusDto.class, CacheStatsDto.class, CopyProgressDto.class, UserVersion.class,
+                PendingUser.class);
+        hints.reflection().registerType(UserIdGenerator.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.resources().registerPattern("db/migration/*.sql");
+        hints.resources().registerPattern("db/partitioning/*.sql");
+    }
+}
@@ -0,0 +1,19 @@
+-- Таблица пользователей. Схемой владеют миграции, Hibernate только проверяет ее (ddl-auto: validate).
+
+-- Шаг последовательности совпадает с allocationSize в User: Hibernate резервирует id блоками
+-- и не ходит в базу за каждым значением.
+CREATE SEQUENCE users_id_seq START WITH 1 INCREMENT BY 50;
+
+-- fillfactor оставляет место на странице под новую версию строки, чтобы UPDATE неиндексированных
+-- колонок (version, age) шел как HOT-update без правки индексов.
+CREATE TABLE users (
+    id        integer      NOT NULL DEFAULT nextval('users_id_seq'),
+    name_user varchar(255),
+    email     varchar(255),
+    age       integer,
+    create_at timestamp(6),
+    version   bigint       NOT NULL DEFAULT 0,
+    CONSTRAINT users_pkey PRIMARY KEY (id)
+) WITH (fillfactor = 90);
+
+ALTER SEQUENCE users_id_seq OWNED BY users.id;
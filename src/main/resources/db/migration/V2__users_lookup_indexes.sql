@@ -0,0 +1,9 @@
+-- Индексы для /users/by-email и /users/search.
+-- CONCURRENTLY не блокирует запись в таблицу; Flyway выполняет такую миграцию вне транзакции,
+-- поэтому в одном файле должны быть только неблокирующие операторы.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ux_users_email ON users (email);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_age ON users (age);
+
+-- text_pattern_ops позволяет использовать индекс для LIKE 'prefix%' при любой collation базы.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_prefix ON users (name_user text_pattern_ops);
@@ -0,0 +1,9 @@
+-- Время последнего изменения строки: из него и version строятся ETag и Last-Modified.
+-- Существующие строки считаются не менявшимися с момента создания.
+ALTER TABLE users ADD COLUMN update_at timestamp(6);
+
+UPDATE users SET update_at = coalesce(create_at, localtimestamp);
+
+ALTER TABLE users
+    ALTER COLUMN update_at SET DEFAULT localtimestamp,
+    ALTER COLUMN update_at SET NOT NULL;
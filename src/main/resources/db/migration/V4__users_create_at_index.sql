@@ -0,0 +1,3 @@
+-- Индекс для GET /users?createdFrom=&createdTo= и выборки пользователей на архивацию.
+-- CONCURRENTLY не блокирует запись; в файле только неблокирующие операторы (см. V2).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_create_at ON users (create_at);
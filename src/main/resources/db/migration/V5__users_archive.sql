@@ -0,0 +1,13 @@
+-- Холодная таблица для пользователей старше app.users.archive.retention (target: table).
+-- Строки переносятся из users как есть; id не пересекаются, потому что берутся из той же последовательности.
+CREATE TABLE users_archive (
+    id          integer      NOT NULL,
+    name_user   varchar(255),
+    email       varchar(255),
+    age         integer,
+    create_at   timestamp(6),
+    update_at   timestamp(6) NOT NULL,
+    version     bigint       NOT NULL,
+    archived_at timestamp(6) NOT NULL DEFAULT localtimestamp,
+    CONSTRAINT users_archive_pkey PRIMARY KEY (id)
+);
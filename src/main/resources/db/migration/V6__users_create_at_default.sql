@@ -0,0 +1,3 @@
+-- Значение create_at по умолчанию для строк, вставленных мимо Hibernate (COPY в /users/import).
+-- В секционированной users (db/partitioning) оно уже есть; повторная установка ничего не меняет.
+ALTER TABLE users ALTER COLUMN create_at SET DEFAULT localtimestamp;
@@ -0,0 +1,50 @@
+-- Изменения users рассылаются экземплярам сервиса через NOTIFY users_changed: каждый сбрасывает
+-- у себя в кэше измененных пользователей. Уведомления уходят при фиксации транзакции и только если
+-- она зафиксирована, от любого источника: CRUD, пачки, COPY, архивация, ручной SQL.
+-- Триггеры на оператор, а не на строку: UPDATE миллиона строк дает десятки уведомлений, а не миллион.
+-- Полезная нагрузка - id через запятую, не больше 500 в одном уведомлении (предел NOTIFY - 8000 байт);
+-- '*' - сбросить весь кэш: после TRUNCATE и когда изменено больше 10000 строк.
+--
+-- Колбэк, а не версионная миграция, выполняется после каждой миграции: db/partitioning/V5_1 на
+-- существующей базе применяется вне очереди и пересоздает users, удаляя ее триггеры. Недостающие
+-- триггеры создаются заново, существующие не трогаются, чтобы не брать блокировку users при каждом старте.
+CREATE OR REPLACE FUNCTION users_notify_changed() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF (SELECT count(*) FROM changed) > 10000 THEN
+        PERFORM pg_notify('users_changed', '*');
+        RETURN NULL;
+    END IF;
+    PERFORM pg_notify('users_changed', string_agg(id::text, ','))
+    FROM (SELECT id, (row_number() OVER () - 1) / 500 AS chunk FROM changed) c
+    GROUP BY chunk;
+    RETURN NULL;
+END $$;
+
+CREATE OR REPLACE FUNCTION users_notify_truncated() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    PERFORM pg_notify('users_changed', '*');
+    RETURN NULL;
+END $$;
+
+-- Вставки не уведомляют: в кэше есть только существующие пользователи.
+-- Для секционированной таблицы триггеры на корневой таблице видят строки всех секций.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = 'users'::regclass AND tgname = 'users_notify_update') THEN
+        CREATE TRIGGER users_notify_update
+            AFTER UPDATE ON users REFERENCING OLD TABLE AS changed
+            FOR EACH STATEMENT EXECUTE FUNCTION users_notify_changed();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = 'users'::regclass AND tgname = 'users_notify_delete') THEN
+        CREATE TRIGGER users_notify_delete
+            AFTER DELETE ON users REFERENCING OLD TABLE AS changed
+            FOR EACH STATEMENT EXECUTE FUNCTION users_notify_changed();
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgrelid = 'users'::regclass AND tgname = 'users_notify_truncate') THEN
+        CREATE TRIGGER users_notify_truncate
+            AFTER TRUNCATE ON users
+            FOR EACH STATEMENT EXECUTE FUNCTION users_notify_truncated();
+    END IF;
+END $$;
@@ -0,0 +1,4 @@
+-- Выполняется после каждой миграции: шаг users_id_seq всегда равен app.users.id.allocation-size,
+-- с которым UserIdGenerator резервирует блоки id. Hibernate при старте сверяет шаг и размер блока.
+-- Уже выданные значения не меняются: следующий nextval просто сдвигается на новый шаг.
+ALTER SEQUENCE users_id_seq INCREMENT BY ${users_id_allocation_size};
@@ -0,0 +1,115 @@
+-- Помесячное секционирование users по create_at. Подключается профилем partitioning
+-- (application-partitioning.yml): на существующей базе Flyway применяет ее вне очереди (out-of-order),
+-- поэтому миграции из db/migration после V5 должны работать с обоими вариантами таблицы.
+--
+-- В секционированной таблице первичный ключ и уникальные индексы обязаны включать create_at.
+-- Поэтому первичный ключ - (id, create_at), а уникальность email держит таблица users_email,
+-- которую ведет триггер. Поиск по id без create_at проверяет индекс каждой секции.
+
+ALTER SEQUENCE users_id_seq OWNED BY NONE;
+
+ALTER TABLE users RENAME TO users_unpartitioned;
+ALTER TABLE users_unpartitioned RENAME CONSTRAINT users_pkey TO users_unpartitioned_pkey;
+DROP INDEX ux_users_email, idx_users_age, idx_users_name_prefix, idx_users_create_at;
+
+CREATE TABLE users (
+    id        integer      NOT NULL DEFAULT nextval('users_id_seq'),
+    name_user varchar(255),
+    email     varchar(255),
+    age       integer,
+    create_at timestamp(6) NOT NULL DEFAULT localtimestamp,
+    version   bigint       NOT NULL DEFAULT 0,
+    update_at timestamp(6) NOT NULL DEFAULT localtimestamp,
+    CONSTRAINT users_pkey PRIMARY KEY (id, create_at)
+) PARTITION BY RANGE (create_at);
+
+-- Секции users_pYYYYMM с месяца from_month по текущий месяц + months_ahead.
+-- Вызывается здесь и периодически из UserPartitionMaintenance; уже существующие секции пропускаются.
+CREATE FUNCTION users_ensure_partitions(from_month date, months_ahead integer) RETURNS integer
+    LANGUAGE plpgsql AS $$
+DECLARE
+    month_start date := date_trunc('month', from_month);
+    until_month date := date_trunc('month', localtimestamp) + make_interval(months => months_ahead);
+    part_name   text;
+    created     integer := 0;
+BEGIN
+    -- несколько экземпляров сервиса не создают одну секцию одновременно
+    PERFORM pg_advisory_xact_lock(hashtext('users_ensure_partitions'));
+    WHILE month_start <= until_month LOOP
+        part_name := 'users_p' || to_char(month_start, 'YYYYMM');
+        IF to_regclass(part_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF users FOR VALUES FROM (%L) TO (%L)',
+                           part_name, month_start, (month_start + interval '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := month_start + interval '1 month';
+    END LOOP;
+    RETURN created;
+END $$;
+
+-- Удаляет пустые секции, целиком лежащие раньше cutoff: после архивации в них ничего не остается.
+CREATE FUNCTION users_drop_empty_partitions(cutoff timestamp) RETURNS integer
+    LANGUAGE plpgsql AS $$
+DECLARE
+    part_name text;
+    has_rows  boolean;
+    dropped   integer := 0;
+BEGIN
+    FOR part_name IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'users'::regclass AND c.relname ~ '^users_p[0-9]{6}$'
+    LOOP
+        IF to_date(substr(part_name, 8), 'YYYYMM') + interval '1 month' <= cutoff THEN
+            EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I)', part_name) INTO has_rows;
+            IF NOT has_rows THEN
+                EXECUTE format('DROP TABLE %I', part_name);
+                dropped := dropped + 1;
+            END IF;
+        END IF;
+    END LOOP;
+    RETURN dropped;
+END $$;
+
+SELECT users_ensure_partitions(coalesce((SELECT min(create_at) FROM users_unpartitioned), localtimestamp)::date, 3);
+
+-- Строки вне созданных секций (например, create_at далеко в будущем) попадают сюда.
+CREATE TABLE users_default PARTITION OF users DEFAULT;
+
+INSERT INTO users (id, name_user, email, age, create_at, version, update_at)
+SELECT id, name_user, email, age, coalesce(create_at, update_at), version, update_at
+FROM users_unpartitioned;
+
+DROP TABLE users_unpartitioned;
+ALTER SEQUENCE users_id_seq OWNED BY users.id;
+
+-- Индексы на родительской таблице создаются во всех секциях, в том числе будущих.
+CREATE INDEX idx_users_email ON users (email);
+CREATE INDEX idx_users_age ON users (age);
+CREATE INDEX idx_users_name_prefix ON users (name_user text_pattern_ops);
+CREATE INDEX idx_users_create_at ON users (create_at);
+
+CREATE TABLE users_email (
+    email   varchar(255) NOT NULL,
+    user_id integer      NOT NULL,
+    CONSTRAINT users_email_pkey PRIMARY KEY (email)
+);
+
+INSERT INTO users_email (email, user_id)
+SELECT email, id FROM users WHERE email IS NOT NULL;
+
+-- Повторный email падает на users_email_pkey с тем же кодом 23505, что и прежний ux_users_email.
+CREATE FUNCTION users_email_unique() RETURNS trigger
+    LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') AND OLD.email IS NOT NULL THEN
+        DELETE FROM users_email WHERE email = OLD.email AND user_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.email IS NOT NULL THEN
+        INSERT INTO users_email (email, user_id) VALUES (NEW.email, NEW.id);
+    END IF;
+    RETURN NULL;
+END $$;
+
+CREATE TRIGGER users_email_unique
+    AFTER INSERT OR DELETE OR UPDATE OF email ON users
+    FOR EACH ROW EXECUTE FUNCTION users_email_unique();
@@ -0,0 +1,48 @@
+-- Строки с create_at за пределами созданных секций (например, переданный клиентом createAt на полгода вперед)
+-- лежат в users_default. Пока они там, CREATE TABLE ... PARTITION OF users на их месяц падает: секция
+-- по умолчанию уже содержит строки нового диапазона. Такой месяц теперь создается отдельной таблицей,
+-- строки переносятся в нее из users_default, и она подключается к users.
+--
+-- Перенос идет мимо корневой таблицы: DELETE из users_default снимает email строк в users_email
+-- (триггер users_email_unique клонирован в секции), новая таблица до ATTACH триггеров не имеет,
+-- поэтому после подключения email переносимых строк возвращаются в users_email. Триггеры уведомлений
+-- на корневой таблице не срабатывают: пользователи не меняются, меняется только секция.
+CREATE OR REPLACE FUNCTION users_ensure_partitions(from_month date, months_ahead integer) RETURNS integer
+    LANGUAGE plpgsql AS $$
+DECLARE
+    month_start date := date_trunc('month', from_month);
+    until_month date := date_trunc('month', localtimestamp) + make_interval(months => months_ahead);
+    month_end   date;
+    part_name   text;
+    in_default  boolean;
+    created     integer := 0;
+BEGIN
+    -- несколько экземпляров сервиса не создают одну секцию одновременно
+    PERFORM pg_advisory_xact_lock(hashtext('users_ensure_partitions'));
+    WHILE month_start <= until_month LOOP
+        part_name := 'users_p' || to_char(month_start, 'YYYYMM');
+        month_end := (month_start + interval '1 month')::date;
+        IF to_regclass(part_name) IS NULL THEN
+            in_default := false;
+            IF to_regclass('users_default') IS NOT NULL THEN
+                SELECT EXISTS (SELECT 1 FROM users_default WHERE create_at >= month_start AND create_at < month_end)
+                INTO in_default;
+            END IF;
+            IF in_default THEN
+                EXECUTE format('CREATE TABLE %I (LIKE users INCLUDING DEFAULTS INCLUDING CONSTRAINTS)', part_name);
+                EXECUTE format('WITH moved AS (DELETE FROM users_default WHERE create_at >= %L AND create_at < %L '
+                               'RETURNING *) INSERT INTO %I SELECT * FROM moved', month_start, month_end, part_name);
+                EXECUTE format('ALTER TABLE users ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                               part_name, month_start, month_end);
+                EXECUTE format('INSERT INTO users_email (email, user_id) SELECT email, id FROM %I '
+                               'WHERE email IS NOT NULL', part_name);
+            ELSE
+                EXECUTE format('CREATE TABLE %I PARTITION OF users FOR VALUES FROM (%L) TO (%L)',
+                               part_name, month_start, month_end);
+            END IF;
+            created := created + 1;
+        END IF;
+        month_start := month_start + interval '1 month';
+    END LOOP;
+    RETURN created;
+END $$;
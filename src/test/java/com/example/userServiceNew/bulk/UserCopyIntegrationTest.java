@@ -0,0 +1,120 @@
+package com.example.userServiceNew.bulk;
+
+import com.example.userServiceNew.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Импорт и выгрузка через COPY на реальном PostgreSQL: CSV туда и обратно, бинарный формат,
+ * upsert через users_import и MERGE. Без Docker тесты пропускаются.
+ */
+@SpringBootTest(properties = "app.users.cache.enabled=false")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+public class UserCopyIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("CSV без id импортируется с id из последовательности и выгружается обратно")
+    void importCsv_ThenExport() throws Exception {
+        mockMvc.perform(post("/users/import")
+                        .contentType("text/csv")
+                        .content("name_user,email,age\nJohn Doe,john.doe@example.com,30\nJane Doe,jane.doe@example.com,\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.rows").value(2));
+
+        assertThat(userRepository.findAll()).hasSize(2)
+                .allSatisfy(user -> assertThat(user.getCreateAt()).isNotNull());
+        String csv = export("text/csv").getResponse().getContentAsString();
+        assertThat(csv.lines()).hasSize(3)
+                .first().isEqualTo(String.join(",", UserCopyService.COLUMNS));
+        assertThat(csv).contains("john.doe@example.com").contains("jane.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Бинарная выгрузка загружается обратно в пустую таблицу")
+    void exportBinary_ThenImport() throws Exception {
+        mockMvc.perform(post("/users/import").contentType("text/csv")
+                        .content("id,name_user,email,age\n7,John Doe,john.doe@example.com,30\n"))
+                .andExpect(status().isOk());
+        byte[] dump = export("application/octet-stream").getResponse().getContentAsByteArray();
+        userRepository.deleteAllInBatch();
+
+        mockMvc.perform(post("/users/import").contentType("application/octet-stream").content(dump))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(1));
+
+        assertThat(userRepository.findById(7)).get()
+                .satisfies(user -> assertThat(user.getEmail()).isEqualTo("john.doe@example.com"));
+    }
+
+    @Test
+    @DisplayName("upsert обновляет существующие id и вставляет новые, без upsert совпадение id - 409")
+    void importCsv_Upsert() throws Exception {
+        mockMvc.perform(post("/users/import").contentType("text/csv")
+                        .content("id,name_user,email,age\n1,John Doe,john.doe@example.com,30\n"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/users/import").contentType("text/csv")
+                        .content("id,age\n1,31\n"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/users/import").param("upsert", "true").contentType("text/csv")
+                        .content("id,age\n1,31\n,25\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").value(2));
+
+        assertThat(userRepository.findById(1)).get().satisfies(user -> {
+            assertThat(user.getAge()).isEqualTo(31);
+            assertThat(user.getNameUser()).isEqualTo("John Doe");
+            assertThat(user.getVersion()).isEqualTo(1L);
+        });
+        assertThat(userRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Неверная строка CSV откатывает весь импорт и дает 400")
+    void importCsv_Malformed() throws Exception {
+        mockMvc.perform(post("/users/import").contentType("text/csv")
+                        .content("name_user,age\nJohn Doe,30\nJane Doe,not-a-number\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(1));
+
+        assertThat(userRepository.count()).isZero();
+    }
+
+    private MvcResult export(String accept) throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/export").accept(accept))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn();
+    }
+}
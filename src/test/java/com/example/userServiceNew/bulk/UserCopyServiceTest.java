@@ -0,0 +1,93 @@
+package com.example.userServiceNew.bulk;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.service.ServiceResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserCopyServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserCache userCache = mock(UserCache.class);
+    private final UserCopyService userCopyService = new UserCopyService(jdbcTemplate,
+            new TransactionTemplate(mock(PlatformTransactionManager.class)), userCache, new UserProperties(),
+            new SimpleMeterRegistry());
+
+    @Nested
+    @DisplayName("Заголовок и колонки")
+    class Columns {
+
+        @Test
+        @DisplayName("Заголовок CSV приводится к именам колонок users")
+        void parseHeader_Normalizes() {
+            assertThat(UserCopyService.parseHeader(" ID,\"Name_User\", email ")).containsExactly("id", "name_user", "email");
+            assertThat(UserCopyService.parseHeader("")).isEmpty();
+        }
+
+        @Test
+        @DisplayName("Неизвестные и повторные колонки отклоняются")
+        void validateColumns_Errors() {
+            assertThat(UserCopyService.validateColumns(List.of("email", "password", "email")))
+                    .containsExactly("Неизвестная колонка: password", "Колонка повторяется: email");
+            assertThat(UserCopyService.validateColumns(UserCopyService.COLUMNS)).isEmpty();
+        }
+
+        @Test
+        @DisplayName("MERGE обновляет только импортированные изменяемые колонки")
+        void mergeSql_UpdatesImportedColumns() {
+            String sql = UserCopyService.mergeSql(List.of("id", "email"));
+
+            assertThat(sql).contains("update set email = s.email, version = u.version + 1")
+                    .doesNotContain("name_user = s.name_user")
+                    .contains("coalesce(s.id, nextval('users_id_seq'))");
+        }
+
+        @Test
+        @DisplayName("MERGE заполняет update_at новых пользователей, если колонки нет во входных данных")
+        void mergeSql_DefaultsUpdateAtForInserts() {
+            String sql = UserCopyService.mergeSql(List.of("id", "age"));
+
+            assertThat(sql).contains("coalesce(s.create_at, localtimestamp), coalesce(s.update_at, localtimestamp)");
+        }
+    }
+
+    @Nested
+    @DisplayName("Импорт")
+    class Import {
+
+        @Test
+        @DisplayName("CSV с неизвестной колонкой отклоняется до обращения к базе")
+        void importCsv_UnknownColumn_NoDatabase() {
+            byte[] body = "id,password\n1,secret\n".getBytes(StandardCharsets.UTF_8);
+
+            ServiceResult<CopyProgressDto> result = userCopyService.importCsv(new ByteArrayInputStream(body), false, null);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(result.getErrors()).containsExactly("Неизвестная колонка: password");
+            verifyNoInteractions(jdbcTemplate, userCache);
+        }
+
+        @Test
+        @DisplayName("CSV без заголовка отклоняется")
+        void importCsv_EmptyBody_Invalid() {
+            ServiceResult<CopyProgressDto> result = userCopyService.importCsv(new ByteArrayInputStream(new byte[0]), true, 0L);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            verifyNoInteractions(jdbcTemplate);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.CacheStatsDto;
+import com.example.userServiceNew.dto.UserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CaffeineUserCacheTest {
+
+    private CaffeineUserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userCache = new CaffeineUserCache(new UserProperties.Cache());
+    }
+
+    private static UserDto userDto(Integer id) {
+        UserDto userDto = new UserDto();
+        userDto.setId(id);
+        userDto.setNameUser("John Doe");
+        return userDto;
+    }
+
+    @Test
+    @DisplayName("Should load once and then serve from cache")
+    void get_SecondCall_IsHit() {
+        AtomicInteger loads = new AtomicInteger();
+
+        userCache.get(1, id -> { loads.incrementAndGet(); return userDto(id); });
+        UserDto result = userCache.get(1, id -> { loads.incrementAndGet(); return userDto(id); });
+
+        assertThat(result.getId()).isEqualTo(1);
+        assertThat(loads).hasValue(1);
+        CacheStatsDto stats = userCache.stats();
+        assertThat(stats.getHitCount()).isEqualTo(1);
+        assertThat(stats.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should not cache missing users")
+    void get_LoaderReturnsNull_NotCached() {
+        assertThat(userCache.get(1, id -> null)).isNull();
+        assertThat(userCache.get(1, CaffeineUserCacheTest::userDto)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should reload after invalidation")
+    void invalidate_RemovesEntry() {
+        AtomicInteger loads = new AtomicInteger();
+        userCache.get(1, id -> { loads.incrementAndGet(); return userDto(id); });
+
+        userCache.invalidate(1);
+        userCache.get(1, id -> { loads.incrementAndGet(); return userDto(id); });
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Should return cached entries without loading")
+    void getIfPresent_DoesNotLoad() {
+        assertThat(userCache.getIfPresent(1)).isNull();
+
+        UserDto userDto = userDto(1);
+        userCache.put(userDto);
+
+        assertThat(userCache.getIfPresent(1)).isSameAs(userDto);
+        assertThat(userCache.getIfPresent(2)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should return only cached users for a list of ids, skipping loads in progress")
+    void getAllPresent_SkipsMissingAndLoading() throws Exception {
+        userCache.put(userDto(1));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<UserDto> slowLoad = CompletableFuture.supplyAsync(() -> userCache.get(2, id -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return userDto(id);
+        }));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(userCache.getAllPresent(List.of(1, 2, 3))).containsOnlyKeys(1);
+
+        release.countDown();
+        slowLoad.get(5, TimeUnit.SECONDS);
+        assertThat(userCache.getAllPresent(List.of(1, 2, 3))).containsOnlyKeys(1, 2);
+    }
+
+    @Test
+    @DisplayName("Should know email owners only while they are cached")
+    void emailOwner_FollowsCacheEntries() {
+        UserDto userDto = userDto(1);
+        userDto.setEmail("john.doe@example.com");
+        userCache.get(1, id -> userDto);
+
+        assertThat(userCache.emailOwner("john.doe@example.com")).isEqualTo(1);
+        assertThat(userCache.emailOwner("jane.doe@example.com")).isNull();
+
+        userCache.invalidate(1);
+
+        assertThat(userCache.emailOwner("john.doe@example.com")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should forget the old email when a user is replaced")
+    void emailOwner_ReplacedUser() {
+        UserDto before = userDto(1);
+        before.setEmail("john.doe@example.com");
+        UserDto after = userDto(1);
+        after.setEmail("john@example.com");
+
+        userCache.put(before);
+        userCache.put(after);
+
+        assertThat(userCache.emailOwner("john.doe@example.com")).isNull();
+        assertThat(userCache.emailOwner("john@example.com")).isEqualTo(1);
+        assertThat(userCache.stats().getHitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should load only once for concurrent misses on the same id")
+    void get_ConcurrentMisses_LoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CompletableFuture<?>[] futures = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.runAsync(() -> {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        userCache.get(1, id -> {
+                            loads.incrementAndGet();
+                            try {
+                                Thread.sleep(50);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return userDto(id);
+                        });
+                    }, executor))
+                    .toArray(CompletableFuture[]::new);
+            start.countDown();
+            CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Should run loader on the load executor and unwrap its exceptions")
+    void get_WithLoadExecutor_LoadsOffCallerThread() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CaffeineUserCache asyncCache = new CaffeineUserCache(new UserProperties.Cache(), executor);
+            Thread caller = Thread.currentThread();
+
+            UserDto result = asyncCache.get(1, id -> {
+                assertThat(Thread.currentThread()).isNotSameAs(caller);
+                return userDto(id);
+            });
+
+            assertThat(result.getId()).isEqualTo(1);
+            assertThatThrownBy(() -> asyncCache.get(2, id -> {
+                throw new IllegalStateException("db down");
+            })).isInstanceOf(IllegalStateException.class).hasMessage("db down");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
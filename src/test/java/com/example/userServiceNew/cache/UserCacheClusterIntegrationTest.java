@@ -0,0 +1,133 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.SpringExampleApplication;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.service.UserCRUDService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Два экземпляра сервиса на одной базе: изменение на одном сбрасывает кэш другого через NOTIFY,
+ * а после обрыва LISTEN кэш сбрасывается целиком. Без Docker тесты пропускаются.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class UserCacheClusterIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeA.close();
+        nodeB.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String name) {
+        return new SpringApplicationBuilder(SpringExampleApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + postgres.getJdbcUrl() + "&ApplicationName=" + name,
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "app.users.cache.cluster.enabled=true",
+                        "app.users.cache.cluster.poll-timeout=200ms",
+                        "app.users.cache.cluster.reconnect-delay=100ms")
+                .run();
+    }
+
+    @Test
+    @DisplayName("update на одном экземпляре сбрасывает пользователя в кэше другого")
+    void updateOnOneNode_InvalidatesOtherNode() {
+        UserCRUDService serviceA = nodeA.getBean(UserCRUDService.class);
+        UserCRUDService serviceB = nodeB.getBean(UserCRUDService.class);
+        UserCache cacheA = nodeA.getBean(UserCache.class);
+        Integer id = serviceB.create(userDto("john.doe@example.com", 30)).getValue().getId();
+        assertThat(serviceA.getById(id).getValue().getAge()).isEqualTo(30);
+        assertThat(cacheA.getIfPresent(id)).isNotNull();
+
+        assertThat(serviceB.update(id, userDto(null, 31)).isOk()).isTrue();
+
+        awaitUntil(() -> cacheA.getIfPresent(id) == null);
+        assertThat(serviceA.getById(id).getValue().getAge()).isEqualTo(31);
+    }
+
+    @Test
+    @DisplayName("Изменение в обход сервиса тоже сбрасывает кэш")
+    void directSqlUpdate_InvalidatesCaches() {
+        UserCRUDService serviceA = nodeA.getBean(UserCRUDService.class);
+        UserCache cacheA = nodeA.getBean(UserCache.class);
+        Integer id = serviceA.create(userDto("jane.doe@example.com", 25)).getValue().getId();
+        serviceA.getById(id);
+
+        nodeB.getBean(JdbcTemplate.class).update("update users set age = 26 where id = ?", id);
+
+        awaitUntil(() -> cacheA.getIfPresent(id) == null);
+    }
+
+    @Test
+    @DisplayName("После обрыва LISTEN экземпляр переподключается и сбрасывает весь кэш")
+    void reconnect_ResyncsWholeCache() {
+        UserCRUDService serviceA = nodeA.getBean(UserCRUDService.class);
+        UserCache cacheA = nodeA.getBean(UserCache.class);
+        Integer id = serviceA.create(userDto("jack.doe@example.com", 40)).getValue().getId();
+        serviceA.getById(id);
+        double resyncs = resyncs(nodeA);
+
+        nodeB.getBean(JdbcTemplate.class).queryForList(
+                "select pg_terminate_backend(pid) from pg_stat_activity where application_name = 'node-a'");
+
+        awaitUntil(() -> resyncs(nodeA) > resyncs);
+        assertThat(cacheA.getIfPresent(id)).isNull();
+    }
+
+    private static double resyncs(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).get(UserCacheInvalidationListener.RESYNCS).counter().count();
+    }
+
+    private static UserDto userDto(String email, Integer age) {
+        UserDto userDto = new UserDto();
+        if (email != null) {
+            userDto.setNameUser("John Doe");
+            userDto.setEmail(email);
+        }
+        userDto.setAge(age);
+        return userDto;
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in 10s").isLessThan(deadline);
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.userServiceNew.cache;
+
+import com.example.userServiceNew.config.UserProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class UserCacheInvalidationListenerTest {
+
+    private final UserCache userCache = mock(UserCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UserCacheInvalidationListener listener = new UserCacheInvalidationListener(
+            mock(DataSource.class), userCache, new UserProperties(), meterRegistry);
+
+    @Test
+    @DisplayName("Пачка уведомлений сбрасывает каждый id один раз")
+    void apply_InvalidatesEachIdOnce() {
+        listener.apply(List.of("1,2", "2,3", ""));
+
+        verify(userCache).invalidate(1);
+        verify(userCache).invalidate(2);
+        verify(userCache).invalidate(3);
+        verify(userCache, never()).invalidateAll();
+        assertThat(meterRegistry.get(UserCacheInvalidationListener.INVALIDATED).counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("'*' в пачке сбрасывает весь кэш вместо отдельных id")
+    void apply_Star_InvalidatesAll() {
+        listener.apply(List.of("1", "*", "2"));
+
+        verify(userCache).invalidateAll();
+        verify(userCache, never()).invalidate(any());
+        assertThat(meterRegistry.get(UserCacheInvalidationListener.RESYNCS).counter().count()).isEqualTo(1);
+    }
+}
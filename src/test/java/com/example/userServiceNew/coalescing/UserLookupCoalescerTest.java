@@ -0,0 +1,214 @@
+package com.example.userServiceNew.coalescing;
+
+import com.example.userServiceNew.cache.CaffeineUserCache;
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.routing.ReplicaRoutingContext;
+import com.example.userServiceNew.routing.ReplicaRoutingProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class UserLookupCoalescerTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserProperties userProperties = new UserProperties();
+    private final ReplicaRoutingProperties replicaRoutingProperties = new ReplicaRoutingProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final CountDownLatch releaseBlocker = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        userProperties.getCoalescing().setMaxWait(Duration.ofSeconds(5));
+        userProperties.getCoalescing().setMaxBatchSize(4);
+        // id 100 держит свой запрос открытым, пока тест не отпустит его: так остальные getById
+        // видят чужой запрос в работе, и первый из них ждет пачку
+        when(userRepository.findDtosByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            if (ids.contains(100)) {
+                releaseBlocker.await();
+            }
+            return ids.stream().filter(id -> id != 404).map(UserLookupCoalescerTest::userDto).toList();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseBlocker.countDown();
+        executor.shutdownNow();
+    }
+
+    private UserLookupCoalescer newCoalescer() {
+        return new UserLookupCoalescer(userRepository, userProperties, replicaRoutingProperties, meterRegistry);
+    }
+
+    private static UserDto userDto(Integer id) {
+        UserDto userDto = new UserDto();
+        userDto.setId(id);
+        return userDto;
+    }
+
+    @Test
+    @DisplayName("Одиночный getById не ждет пачку")
+    void load_Alone_DoesNotWait() {
+        UserLookupCoalescer coalescer = newCoalescer();
+
+        long started = System.nanoTime();
+        UserDto result = coalescer.load(1);
+
+        assertThat(result.getId()).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        verify(userRepository).findDtosByIdIn(Set.of(1));
+    }
+
+    @Test
+    @DisplayName("Одновременные getById по разным id читаются одним запросом")
+    void load_Concurrent_OneQuery() throws Exception {
+        UserLookupCoalescer coalescer = newCoalescer();
+        Future<UserDto> blocker = executor.submit(() -> coalescer.load(100));
+        verify(userRepository, timeout(5000)).findDtosByIdIn(Set.of(100));
+
+        List<Future<UserDto>> lookups = IntStream.of(1, 2, 3, 404)
+                .mapToObj(id -> executor.submit(() -> coalescer.load(id)))
+                .toList();
+
+        assertThat(lookups.get(0).get(5, TimeUnit.SECONDS).getId()).isEqualTo(1);
+        assertThat(lookups.get(2).get(5, TimeUnit.SECONDS).getId()).isEqualTo(3);
+        assertThat(lookups.get(3).get(5, TimeUnit.SECONDS)).isNull();
+        verify(userRepository).findDtosByIdIn(Set.of(1, 2, 3, 404));
+        releaseBlocker.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+
+        assertThat(meterRegistry.get(UserLookupCoalescer.REQUESTS).counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get(UserLookupCoalescer.BATCH_SIZE).summary().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Ошибка запроса достается всем getById пачки")
+    void load_QueryFails_AllCallersFail() throws Exception {
+        when(userRepository.findDtosByIdIn(Set.of(1, 2, 3, 4))).thenThrow(new DataAccessResourceFailureException("db down"));
+        UserLookupCoalescer coalescer = newCoalescer();
+        Future<UserDto> blocker = executor.submit(() -> coalescer.load(100));
+        verify(userRepository, timeout(5000)).findDtosByIdIn(Set.of(100));
+
+        List<Future<UserDto>> lookups = IntStream.rangeClosed(1, 4)
+                .mapToObj(id -> executor.submit(() -> coalescer.load(id)))
+                .toList();
+
+        for (Future<UserDto> lookup : lookups) {
+            assertThatThrownBy(() -> lookup.get(5, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(DataAccessResourceFailureException.class);
+        }
+        releaseBlocker.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Если лидер пачки падает с Error, остальные getById получают ошибку, а не ждут вечно")
+    void load_LeaderError_FollowersComplete() throws Exception {
+        when(userRepository.findDtosByIdIn(Set.of(1, 2, 3, 4))).thenThrow(new AssertionError("leader died"));
+        UserLookupCoalescer coalescer = newCoalescer();
+        Future<UserDto> blocker = executor.submit(() -> coalescer.load(100));
+        verify(userRepository, timeout(5000)).findDtosByIdIn(Set.of(100));
+
+        List<Future<UserDto>> lookups = IntStream.rangeClosed(1, 4)
+                .mapToObj(id -> executor.submit(() -> coalescer.load(id)))
+                .toList();
+
+        for (Future<UserDto> lookup : lookups) {
+            assertThatThrownBy(() -> lookup.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        }
+        releaseBlocker.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Лидер ждет пачку вне блокировки кэша: запись других ключей не ждет его")
+    void load_ThroughCache_WaitsOutsideCompute() throws Exception {
+        CaffeineUserCache userCache = new CaffeineUserCache(userProperties.getCache());
+        UserLookupCoalescer coalescer = newCoalescer();
+        Future<UserDto> blocker = executor.submit(() -> coalescer.load(100, userCache));
+        verify(userRepository, timeout(5000)).findDtosByIdIn(Set.of(100));
+        // лидер новой пачки ждет до max-wait (5 с), пока идет запрос по id 100
+        Future<UserDto> leader = executor.submit(() -> coalescer.load(1, userCache));
+        verify(userRepository, after(200).never()).findDtosByIdIn(Set.of(1));
+
+        long started = System.nanoTime();
+        // 17 попадает в тот же bin ConcurrentHashMap, что и 1
+        executor.submit(() -> userCache.put(userDto(17))).get(5, TimeUnit.SECONDS);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        assertThat(leader.get(10, TimeUnit.SECONDS).getId()).isEqualTo(1);
+        assertThat(userCache.getIfPresent(1)).isNotNull();
+        releaseBlocker.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("С cache-loads-on-primary промахи через кэш читаются с primary")
+    void load_CacheLoadsOnPrimary_ReadsPrimary() {
+        replicaRoutingProperties.setEnabled(true);
+        AtomicBoolean onPrimary = new AtomicBoolean();
+        when(userRepository.findDtosByIdIn(Set.of(1))).thenAnswer(invocation -> {
+            onPrimary.set(ReplicaRoutingContext.isPrimaryForced());
+            return List.of(userDto(1));
+        });
+
+        UserDto result = newCoalescer().load(1, new CaffeineUserCache(userProperties.getCache()));
+
+        assertThat(result.getId()).isEqualTo(1);
+        assertThat(onPrimary).isTrue();
+    }
+
+    @Test
+    @DisplayName("Попадания в кэш не считаются склейкой и не заставляют одиночный промах ждать пачку")
+    void load_CacheHits_NotCoalesced() throws Exception {
+        UserCache userCache = spy(new NoOpUserCache());
+        CountDownLatch hitStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            hitStarted.countDown();
+            releaseBlocker.await();
+            return CompletableFuture.completedFuture(userDto(2));
+        }).when(userCache).getAsync(eq(2), any());
+        UserLookupCoalescer coalescer = newCoalescer();
+        Future<UserDto> hit = executor.submit(() -> coalescer.load(2, userCache));
+        hitStarted.await(5, TimeUnit.SECONDS);
+
+        long started = System.nanoTime();
+        UserDto miss = coalescer.load(1, userCache);
+
+        assertThat(miss.getId()).isEqualTo(1);
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        releaseBlocker.countDown();
+        assertThat(hit.get(5, TimeUnit.SECONDS).getId()).isEqualTo(2);
+        assertThat(meterRegistry.get(UserLookupCoalescer.REQUESTS).counter().count()).isEqualTo(1);
+    }
+}
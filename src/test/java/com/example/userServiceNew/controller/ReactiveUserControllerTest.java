@@ -0,0 +1,157 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.service.ReactiveUserCRUDService;
+import com.example.userServiceNew.service.ServiceResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ReactiveUserControllerTest {
+
+    private final ReactiveUserCRUDService userService = mock(ReactiveUserCRUDService.class);
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToController(new ReactiveUserController(userService))
+                .controllerAdvice(new ReactiveUserExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should answer 201 with Location of the created user")
+    void createUser_Success_Created() {
+        UserDto created = new UserDto(7, "John", "john@example.com", 30, null, null, 0L);
+        when(userService.create(any(UserDto.class))).thenReturn(Mono.just(ServiceResult.ok(created)));
+
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nameUser\":\"John\",\"email\":\"john@example.com\",\"age\":30}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().value(HttpHeaders.LOCATION, location -> assertThat(location).endsWith("/users/7"))
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("Should answer 400 with field errors without calling the service")
+    void createUser_Invalid_BadRequest() {
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nameUser\":\"John\",\"email\":\"not-an-email\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(1)
+                .jsonPath("$.message").isEqualTo("Некорректные данные пользователя")
+                .jsonPath("$.error.length()").isEqualTo(2);
+
+        verify(userService, never()).create(any());
+    }
+
+    @Test
+    @DisplayName("Should answer 400 on update when a given field is invalid")
+    void updateUser_Invalid_BadRequest() {
+        webTestClient.patch().uri("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"age\":-1}")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(userService, never()).update(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should answer 404 when the user does not exist")
+    void getUserById_Missing_NotFound() {
+        when(userService.getById(999)).thenReturn(Mono.just(ServiceResult.notFound("Пользователя с таким id не существует")));
+
+        webTestClient.get().uri("/users/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(1)
+                .jsonPath("$.error[0]").isEqualTo("Пользователя с таким id не существует");
+    }
+
+    @Test
+    @DisplayName("Should answer 409 when the version is stale")
+    void updateUser_StaleVersion_Conflict() {
+        when(userService.update(eq(1), any(UserDto.class)))
+                .thenReturn(Mono.just(ServiceResult.conflict("Пользователь был изменен другим запросом")));
+
+        webTestClient.put().uri("/users/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nameUser\":\"Jane\",\"version\":2}")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Обновление пользователя не возможно");
+    }
+
+    @Test
+    @DisplayName("Should answer 404 when deleting a missing user")
+    void deleteUser_Missing_NotFound() {
+        when(userService.delete(999)).thenReturn(Mono.just(ServiceResult.notFound("Пользователя с таким id не существует")));
+
+        webTestClient.delete().uri("/users/999")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Should answer 409 without exception details when the database rejects a user")
+    void createUser_ConstraintViolation_Conflict() {
+        when(userService.create(any(UserDto.class))).thenReturn(Mono.error(
+                new DataIntegrityViolationException("duplicate key value violates unique constraint \"ux_users_email\"")));
+
+        webTestClient.post().uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nameUser\":\"John\",\"email\":\"john@example.com\",\"age\":30}")
+                .exchange()
+                .expectStatus().isEqualTo(409)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(1)
+                .jsonPath("$.message").isEqualTo("Данные пользователя конфликтуют с существующими")
+                .jsonPath("$.error").doesNotExist();
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After while the database is unavailable")
+    void getUserById_DatabaseUnavailable_ServiceUnavailable() {
+        when(userService.getById(1)).thenReturn(Mono.error(new QueryTimeoutException("canceling statement")));
+
+        webTestClient.get().uri("/users/1")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Сервис временно недоступен");
+    }
+
+    @Test
+    @DisplayName("Should answer 500 with a generic message on unexpected errors")
+    void deleteUser_UnexpectedError_InternalServerError() {
+        when(userService.delete(1)).thenReturn(Mono.error(new IllegalStateException("select * from users")));
+
+        webTestClient.delete().uri("/users/1")
+                .exchange()
+                .expectStatus().isEqualTo(500)
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Внутренняя ошибка сервера")
+                .jsonPath("$.error").doesNotExist();
+    }
+}
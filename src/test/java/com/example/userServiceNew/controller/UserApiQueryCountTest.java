@@ -0,0 +1,216 @@
+package com.example.userServiceNew.controller;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.support.QueryCountTestConfig;
+import com.example.userServiceNew.support.QueryCounts;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Сквозные проверки числа SQL-операторов на реальном PostgreSQL.
+ * Кэш пользователей выключен, чтобы считались все обращения к базе.
+ * Без Docker тесты пропускаются.
+ */
+@SpringBootTest(properties = "app.users.cache.enabled=false")
+@AutoConfigureMockMvc
+@Import(QueryCountTestConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+public class UserApiQueryCountTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("getById выполняет ровно один SELECT")
+    void getById_singleSelect() throws Exception {
+        User user = saveUser("John Doe", "john.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(get("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0));
+
+        QueryCounts.assertSelectCount(1);
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Условный getById с актуальным ETag отвечает 304 после одного SELECT версии")
+    void getById_notModified_singleSelect() throws Exception {
+        User user = saveUser("John Doe", "john.doe@example.com");
+        String eTag = mockMvc.perform(get("/users/{id}", user.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        QueryCounts.reset();
+
+        mockMvc.perform(get("/users/{id}", user.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        QueryCounts.assertSelectCount(1);
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    @Test
+    @DisplayName("getAll выполняет один SELECT независимо от числа пользователей")
+    void getAll_singleSelect() throws Exception {
+        saveUser("John Doe", "john.doe@example.com");
+        saveUser("Jane Doe", "jane.doe@example.com");
+        saveUser("Jack Doe", "jack.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(3));
+
+        QueryCounts.assertSelectCount(1);
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Мульти-get выполняет один SELECT ... IN независимо от числа id")
+    void getByIds_singleSelect() throws Exception {
+        User john = saveUser("John Doe", "john.doe@example.com");
+        User jane = saveUser("Jane Doe", "jane.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(get("/users").param("ids", jane.getId() + "," + john.getId() + ",0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(2))
+                .andExpect(jsonPath("$.users[0].id").value(jane.getId()));
+
+        QueryCounts.assertSelectCount(1);
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    @Test
+    @DisplayName("Страница по курсору выполняет один SELECT")
+    void getPage_singleSelect() throws Exception {
+        saveUser("John Doe", "john.doe@example.com");
+        saveUser("Jane Doe", "jane.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(get("/users").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1));
+
+        QueryCounts.assertSelectCount(1);
+    }
+
+    @Test
+    @DisplayName("create выполняет не больше двух операторов: nextval и INSERT")
+    void create_atMostTwoStatements() throws Exception {
+        UserDto userDto = userDto("John Doe", "john.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.status").value(0));
+
+        QueryCounts.assertStatementsAtMost(2);
+    }
+
+    @Test
+    @DisplayName("Пачка пользователей: id из одного блока последовательности и один пакетный INSERT")
+    void createBatch_idsFromOneBlock() throws Exception {
+        List<UserDto> users = List.of(userDto("John Doe", "john.doe@example.com"),
+                userDto("Jane Doe", "jane.doe@example.com"),
+                userDto("Jack Doe", "jack.doe@example.com"));
+        QueryCounts.reset();
+
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(users)))
+                .andExpect(status().isOk());
+
+        // не больше одного nextval на пачку вместо nextval на каждого пользователя
+        QueryCounts.assertStatementsAtMost(2);
+        assertThat(userRepository.findAll()).hasSize(3);
+    }
+
+    @Test
+    @DisplayName("update выполняет один UPDATE")
+    void update_singleStatement() throws Exception {
+        User user = saveUser("John Doe", "john.doe@example.com");
+        UserDto changes = new UserDto();
+        changes.setAge(31);
+        changes.setCreateAt(null);
+        QueryCounts.reset();
+
+        mockMvc.perform(patch("/users/{id}", user.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(changes)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0));
+
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    @Test
+    @DisplayName("delete выполняет не больше одного оператора")
+    void delete_atMostOneStatement() throws Exception {
+        User user = saveUser("John Doe", "john.doe@example.com");
+        QueryCounts.reset();
+
+        mockMvc.perform(delete("/users/{id}", user.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0));
+
+        QueryCounts.assertStatementsAtMost(1);
+    }
+
+    private static UserDto userDto(String name, String email) {
+        UserDto userDto = new UserDto();
+        userDto.setNameUser(name);
+        userDto.setEmail(email);
+        userDto.setAge(30);
+        return userDto;
+    }
+
+    private User saveUser(String name, String email) {
+        User user = new User();
+        user.setNameUser(name);
+        user.setEmail(email);
+        user.setAge(30);
+        user.setCreateAt(LocalDateTime.now());
+        return userRepository.save(user);
+    }
+}
@@ -1,10 +1,23 @@
 package com.example.userServiceNew.controller;
 
+import com.example.userServiceNew.bulk.CopyFormat;
+import com.example.userServiceNew.bulk.UserCopyService;
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.CopyProgressDto;
 import com.example.userServiceNew.dto.Response;
 import com.example.userServiceNew.dto.UserDto;
-import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.service.ServiceResult;
+import com.example.userServiceNew.service.UserBatchService;
 import com.example.userServiceNew.service.UserCRUDService;
+import com.example.userServiceNew.support.QueryCountTestConfig;
+import com.example.userServiceNew.support.QueryCounts;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,15 +25,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItems;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -28,6 +50,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@Import(QueryCountTestConfig.class)
 public class UserControllerTest {
     @Autowired
     private MockMvc mockMvc;
@@ -38,10 +61,14 @@ public class UserControllerTest {
     @MockBean
     private UserCRUDService userService;
 
+    @MockBean
+    private UserBatchService userBatchService;
+
+    @MockBean
+    private UserCopyService userCopyService;
+
     private UserDto userDto;
-    private UserResponseDto userResponseDto;
     private Response successResponse;
-    private Response errorResponse;
     private LocalDateTime fixedDateTime;
 
     @BeforeEach
@@ -54,25 +81,32 @@ public class UserControllerTest {
         userDto.setEmail("john.doe@example.com");
         userDto.setAge(30);
         userDto.setCreateAt(fixedDateTime);
-
-        userResponseDto = new UserResponseDto(0, userDto, null);
+        userDto.setUpdateAt(fixedDateTime);
+        userDto.setVersion(2L);
 
         successResponse = new Response(0, "Operation successful", null);
-        errorResponse = new Response(1, "Operation failed", List.of("Error message"));
+        QueryCounts.reset();
+    }
+
+    /** Сервисы замоканы, значит веб-слой сам не должен обращаться к базе. */
+    @AfterEach
+    void assertNoQueriesFromWebLayer() {
+        QueryCounts.assertNoStatements();
     }
 
 
     @Test
-    @DisplayName("Should create user successfully")
+    @DisplayName("Should create user with 201 and Location")
     void createUser_Success() throws Exception {
-        when(userService.create(any(UserDto.class))).thenReturn(successResponse);
+        when(userService.create(any(UserDto.class))).thenReturn(ServiceResult.ok(userDto));
 
         mockMvc.perform(post("/users")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userDto)))
-                .andExpect(status().isOk())
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/users/1"))
                 .andExpect(jsonPath("$.status").value(0))
-                .andExpect(jsonPath("$.message").value("Operation successful"))
+                .andExpect(jsonPath("$.message").value("Пользователь сохранен"))
                 .andExpect(jsonPath("$.error").isEmpty());
 
         verify(userService, times(1)).create(any(UserDto.class));
@@ -81,7 +115,7 @@ public class UserControllerTest {
     @Test
     @DisplayName("Should get user by id successfully")
     void getUserById_Success() throws Exception {
-        when(userService.getById(1)).thenReturn(userResponseDto);
+        when(userService.getById(1)).thenReturn(ServiceResult.ok(userDto));
 
         mockMvc.perform(get("/users/1"))
                 .andExpect(status().isOk())
@@ -96,13 +130,49 @@ public class UserControllerTest {
     }
 
     @Test
-    @DisplayName("Should return error when user not found")
+    @DisplayName("Should send ETag and Last-Modified for a user")
+    void getUserById_SendsValidators() throws Exception {
+        when(userService.getById(1)).thenReturn(ServiceResult.ok(userDto));
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+
+        verify(userService, never()).getVersion(any());
+    }
+
+    @Test
+    @DisplayName("Should answer 304 from the version alone when ETag matches")
+    void getUserById_NotModified() throws Exception {
+        when(userService.getVersion(1)).thenReturn(Optional.of(new UserVersion(1, 2L, fixedDateTime)));
+
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(userService, never()).getById(any());
+    }
+
+    @Test
+    @DisplayName("Should return the user when the ETag is stale")
+    void getUserById_StaleETag() throws Exception {
+        when(userService.getVersion(1)).thenReturn(Optional.of(new UserVersion(1, 2L, fixedDateTime)));
+        when(userService.getById(1)).thenReturn(ServiceResult.ok(userDto));
+
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
+                .andExpect(jsonPath("$.userDto.version").value(2));
+    }
+
+    @Test
+    @DisplayName("Should return 404 when user not found")
     void getUserById_NotFound() throws Exception {
-        UserResponseDto notFoundResponse = new UserResponseDto(1, null, List.of("User not found"));
-        when(userService.getById(999)).thenReturn(notFoundResponse);
+        when(userService.getById(999)).thenReturn(ServiceResult.notFound("User not found"));
 
         mockMvc.perform(get("/users/999"))
-                .andExpect(status().isOk())
+                .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.status").value(1))
                 .andExpect(jsonPath("$.userDto").isEmpty())
                 .andExpect(jsonPath("$.error[0]").value("User not found"));
@@ -110,6 +180,38 @@ public class UserControllerTest {
         verify(userService, times(1)).getById(999);
     }
 
+    @Test
+    @DisplayName("Should answer 503 with Retry-After when the database is unavailable")
+    void getUserById_DatabaseDown_ServiceUnavailable() throws Exception {
+        when(userService.getById(1)).thenThrow(new CannotCreateTransactionException("Connection refused"));
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(1));
+    }
+
+    @Test
+    @DisplayName("Should answer 500 without exception details on unexpected errors")
+    void getUserById_UnexpectedError_InternalServerError() throws Exception {
+        when(userService.getById(1)).thenThrow(new IllegalStateException("secret details"));
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.status").value(1))
+                .andExpect(jsonPath("$.message").value("Внутренняя ошибка сервера"))
+                .andExpect(jsonPath("$.error").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep Spring MVC status for malformed requests")
+    void getUserById_BadPathVariable_BadRequest() throws Exception {
+        mockMvc.perform(get("/users/abc"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService);
+    }
+
     @Test
     @DisplayName("Should get all users successfully")
     void getAllUsers_Success() throws Exception {
@@ -120,34 +222,166 @@ public class UserControllerTest {
         userDto2.setAge(25);
         userDto2.setCreateAt(fixedDateTime);
 
-        UserResponseDto response1 = new UserResponseDto(0, userDto, null);
-        UserResponseDto response2 = new UserResponseDto(0, userDto2, null);
-
-        Collection<UserResponseDto> users = Arrays.asList(response1, response2);
+        UserPageDto users = new UserPageDto(0, Arrays.asList(userDto, userDto2), null, null);
 
         when(userService.getAll()).thenReturn(users);
 
         mockMvc.perform(get("/users"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].status").value(0))
-                .andExpect(jsonPath("$[0].userDto.id").value(1))
-                .andExpect(jsonPath("$[0].userDto.nameUser").value("John Doe"))
-                .andExpect(jsonPath("$[1].status").value(0))
-                .andExpect(jsonPath("$[1].userDto.id").value(2))
-                .andExpect(jsonPath("$[1].userDto.nameUser").value("Jane Smith"));
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.users[0].id").value(1))
+                .andExpect(jsonPath("$.users[0].nameUser").value("John Doe"))
+                .andExpect(jsonPath("$.users[1].id").value(2))
+                .andExpect(jsonPath("$.users[1].nameUser").value("Jane Smith"))
+                .andExpect(jsonPath("$.error").isEmpty());
 
         verify(userService, times(1)).getAll();
     }
 
+    @Test
+    @DisplayName("Should encode users as CBOR or Smile when asked by Accept")
+    void getAllUsers_BinaryFormats() throws Exception {
+        when(userService.getAll()).thenReturn(new UserPageDto(0, List.of(userDto), null, null));
+
+        for (ObjectMapper binaryMapper : List.of(new ObjectMapper(new CBORFactory()), new ObjectMapper(new SmileFactory()))) {
+            String mediaType = binaryMapper.getFactory() instanceof CBORFactory
+                    ? "application/cbor" : "application/x-jackson-smile";
+            byte[] body = mockMvc.perform(get("/users").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(mediaType))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode page = binaryMapper.readTree(body);
+            assertThat(page.get("status").asInt()).isEqualTo(0);
+            assertThat(page.get("users").get(0).get("nameUser").asText()).isEqualTo("John Doe");
+            assertThat(page.get("users").get(0).get("createAt").asText()).isEqualTo("2024-01-01T10:00:00");
+        }
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for an unchanged list")
+    void getAllUsers_NotModified() throws Exception {
+        when(userService.getAll()).thenReturn(new UserPageDto(0, List.of(userDto), null, null));
+
+        String eTag = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(eTag).startsWith("W/");
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @DisplayName("Should get users page with next cursor")
+    void getUsersPage_Success() throws Exception {
+        when(userService.getPage(0, 1)).thenReturn(new UserPageDto(0, List.of(userDto), 1, null));
+
+        mockMvc.perform(get("/users").param("after", "0").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.users[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(1));
+
+        verify(userService, times(1)).getPage(0, 1);
+        verify(userService, never()).getAll();
+    }
+
+    @Test
+    @DisplayName("Should get users created in range")
+    void getUsersCreatedBetween_Success() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(userService.getCreatedBetween(from, to, null, 10))
+                .thenReturn(ServiceResult.ok(new UserPageDto(0, List.of(userDto), null, null)));
+
+        mockMvc.perform(get("/users")
+                        .param("createdFrom", "2024-01-01T00:00")
+                        .param("createdTo", "2024-02-01T00:00")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.users[0].id").value(1));
+
+        verify(userService, never()).getPage(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject empty creation range with 400")
+    void getUsersCreatedBetween_EmptyRange_BadRequest() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2024, 2, 1, 0, 0);
+        when(userService.getCreatedBetween(from, from, null, null))
+                .thenReturn(ServiceResult.invalid(List.of("createdFrom должен быть раньше createdTo")));
+
+        mockMvc.perform(get("/users")
+                        .param("createdFrom", "2024-02-01T00:00")
+                        .param("createdTo", "2024-02-01T00:00"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(1))
+                .andExpect(jsonPath("$.error[0]").value("createdFrom должен быть раньше createdTo"));
+    }
+
+    @Test
+    @DisplayName("Should get several users by ids in one call")
+    void getUsersByIds_Success() throws Exception {
+        when(userService.getByIds(List.of(1, 2))).thenReturn(ServiceResult.ok(new UserPageDto(0, List.of(userDto), null, null)));
+
+        mockMvc.perform(get("/users").param("ids", "1,2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.users[0].id").value(1));
+
+        verify(userService, never()).getAll();
+    }
+
+    @Test
+    @DisplayName("Should accept ids in a POST body and reject an empty list")
+    void postUsersByIds() throws Exception {
+        when(userService.getByIds(List.of(1))).thenReturn(ServiceResult.ok(new UserPageDto(0, List.of(userDto), null, null)));
+        when(userService.getByIds(List.of())).thenReturn(ServiceResult.invalid(List.of("Нужно передать от 1 до 1000 id")));
+
+        mockMvc.perform(post("/users/by-ids").contentType(MediaType.APPLICATION_JSON).content("[1]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(1));
+        mockMvc.perform(post("/users/by-ids").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(1));
+    }
+
+    @Test
+    @DisplayName("Should find user by email")
+    void getUserByEmail_Success() throws Exception {
+        when(userService.getByEmail("john.doe@example.com")).thenReturn(ServiceResult.ok(userDto));
+
+        mockMvc.perform(get("/users/by-email/john.doe@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.userDto.email").value("john.doe@example.com"));
+
+        verify(userService, times(1)).getByEmail("john.doe@example.com");
+    }
+
+    @Test
+    @DisplayName("Should search users by name prefix and age")
+    void searchUsers_Success() throws Exception {
+        when(userService.search("Jo", 18, 40, null)).thenReturn(new UserPageDto(0, List.of(userDto), null, null));
+
+        mockMvc.perform(get("/users/search").param("name", "Jo").param("minAge", "18").param("maxAge", "40"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].nameUser").value("John Doe"));
+
+        verify(userService, times(1)).search("Jo", 18, 40, null);
+    }
+
     @Test
     @DisplayName("Should delete user successfully")
     void deleteUser_Success() throws Exception {
-        when(userService.delete(1)).thenReturn(successResponse);
+        when(userService.delete(1)).thenReturn(ServiceResult.ok(null));
 
         mockMvc.perform(delete("/users/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(0))
-                .andExpect(jsonPath("$.message").value("Operation successful"))
+                .andExpect(jsonPath("$.message").value("Пользователь удален"))
                 .andExpect(jsonPath("$.error").isEmpty());
 
         verify(userService, times(1)).delete(1);
@@ -156,30 +390,175 @@ public class UserControllerTest {
     @Test
     @DisplayName("Should return error when deleting non-existent user")
     void deleteUser_NotFound() throws Exception {
-        when(userService.delete(999)).thenReturn(errorResponse);
+        when(userService.delete(999)).thenReturn(ServiceResult.notFound("Error message"));
 
         mockMvc.perform(delete("/users/999"))
-                .andExpect(status().isOk())
+                .andExpect(status().isNotFound())
                 .andExpect(jsonPath("$.status").value(1))
-                .andExpect(jsonPath("$.message").value("Operation failed"))
+                .andExpect(jsonPath("$.message").value("Удаление пользователя не возможно"))
                 .andExpect(jsonPath("$.error[0]").value("Error message"));
 
         verify(userService, times(1)).delete(999);
     }
 
+    @Test
+    @DisplayName("Should reject incomplete user with 400 without calling the service")
+    void createUser_Invalid_BadRequest() throws Exception {
+        userDto.setEmail(null);
+        userDto.setAge(-5);
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(1))
+                .andExpect(jsonPath("$.error", hasItems(
+                        "email: Email не заполнен", "age: Возраст не может быть отрицательным")));
+
+        verify(userService, never()).create(any(UserDto.class));
+    }
+
+    @Test
+    @DisplayName("Should reject known email with 409")
+    void createUser_KnownEmail_Conflict() throws Exception {
+        when(userService.create(any(UserDto.class)))
+                .thenReturn(ServiceResult.conflict("Пользователь с таким email уже существует"));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(1))
+                .andExpect(jsonPath("$.error[0]").value("Пользователь с таким email уже существует"));
+    }
+
+    @Test
+    @DisplayName("Should map a database email constraint violation to 409")
+    void createUser_ConstraintViolation_Conflict() throws Exception {
+        when(userService.create(any(UserDto.class)))
+                .thenThrow(new DataIntegrityViolationException("users_email_key"));
+
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(1));
+    }
+
+    @Test
+    @DisplayName("Should validate only filled fields on patch")
+    void patchUser_InvalidAge_BadRequest() throws Exception {
+        mockMvc.perform(patch("/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":-1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error[0]").value("age: Возраст не может быть отрицательным"));
+
+        verify(userService, never()).update(any(), any(UserDto.class));
+    }
+
     @Test
     @DisplayName("Should update user successfully")
     void updateUser_Success() throws Exception {
-        when(userService.update(eq(1), any(UserDto.class))).thenReturn(successResponse);
+        when(userService.update(eq(1), any(UserDto.class))).thenReturn(ServiceResult.ok(null));
 
         mockMvc.perform(put("/users/1")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(userDto)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.status").value(0))
-                .andExpect(jsonPath("$.message").value("Operation successful"))
+                .andExpect(jsonPath("$.message").value("Пользователь обновлен"))
                 .andExpect(jsonPath("$.error").isEmpty());
 
         verify(userService, times(1)).update(eq(1), any(UserDto.class));
     }
+
+    @Test
+    @DisplayName("Should return 409 when the version is stale")
+    void updateUser_StaleVersion_Conflict() throws Exception {
+        when(userService.update(eq(1), any(UserDto.class)))
+                .thenReturn(ServiceResult.conflict("Пользователь был изменен другим запросом"));
+
+        mockMvc.perform(put("/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Обновление пользователя не возможно"))
+                .andExpect(jsonPath("$.error[0]").value("Пользователь был изменен другим запросом"));
+    }
+
+    @Test
+    @DisplayName("Should patch user with partial data")
+    void patchUser_Success() throws Exception {
+        when(userService.update(eq(1), any(UserDto.class))).thenReturn(ServiceResult.ok(null));
+
+        mockMvc.perform(patch("/users/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":31,\"version\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0));
+
+        verify(userService, times(1)).update(eq(1), argThat(dto ->
+                dto.getAge() == 31 && dto.getVersion() == 2L && dto.getNameUser() == null));
+    }
+
+    @Test
+    @DisplayName("Should create users in batch")
+    void createUsers_Batch_Success() throws Exception {
+        when(userBatchService.createAll(any())).thenReturn(
+                new BatchResponse(0, "Пользователи сохранены", List.of(successResponse, successResponse)));
+
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(userDto, userDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.results.length()").value(2));
+
+        verify(userBatchService, times(1)).createAll(any());
+    }
+
+    @Test
+    @DisplayName("Should import CSV through COPY and report rows")
+    void importUsersCsv_Success() throws Exception {
+        when(userCopyService.importCsv(any(), eq(true), eq(28L))).thenReturn(ServiceResult.ok(
+                new CopyProgressDto(0, "id", "upsert-csv", 1L, 28L, 28L, 5L, 200L, null)));
+
+        mockMvc.perform(post("/users/import")
+                        .param("upsert", "true")
+                        .contentType("text/csv")
+                        .content("name_user,email\nJohn,j@x.io\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(0))
+                .andExpect(jsonPath("$.rows").value(1));
+    }
+
+    @Test
+    @DisplayName("Should reject import with unknown columns with 400")
+    void importUsersCsv_UnknownColumn() throws Exception {
+        when(userCopyService.importCsv(any(), eq(false), any()))
+                .thenReturn(ServiceResult.invalid(List.of("Неизвестная колонка: password")));
+
+        mockMvc.perform(post("/users/import").contentType("text/csv").content("password\nsecret\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(1))
+                .andExpect(jsonPath("$.error[0]").value("Неизвестная колонка: password"));
+    }
+
+    @Test
+    @DisplayName("Should stream export in the format asked by Accept")
+    void exportUsers_StreamsCopyOutput() throws Exception {
+        when(userCopyService.export(eq(CopyFormat.CSV), any())).thenAnswer(invocation -> {
+            invocation.getArgument(1, OutputStream.class).write("id\n1\n".getBytes());
+            return null;
+        });
+
+        MvcResult result = mockMvc.perform(get("/users/export").accept("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id\n1\n"));
+    }
 }
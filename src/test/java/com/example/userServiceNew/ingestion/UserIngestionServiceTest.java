@@ -0,0 +1,326 @@
+package com.example.userServiceNew.ingestion;
+
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.IngestionState;
+import com.example.userServiceNew.dto.IngestionStatusDto;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserIngestionServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private final UserCache userCache = new NoOpUserCache();
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UserProperties userProperties = new UserProperties();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    @BeforeEach
+    void setUp() {
+        userProperties.getWriteBehind().setFlushInterval(Duration.ofMillis(10));
+        lenient().doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            users.forEach(user -> user.setId(nextId.getAndIncrement()));
+            return users;
+        });
+    }
+
+    private UserIngestionService newService() {
+        return new UserIngestionService(userRepository, transactionTemplate, userCache, userProperties, objectMapper);
+    }
+
+    private static UserDto userDto(String name) {
+        UserDto userDto = new UserDto();
+        userDto.setNameUser(name);
+        userDto.setEmail(name + "@example.com");
+        userDto.setAge(30);
+        return userDto;
+    }
+
+    @Nested
+    @DisplayName("submit")
+    class SubmitTests {
+
+        @Test
+        @DisplayName("Принятый пользователь получает trackingId и записывается при остановке")
+        void submit_QueuedThenSavedOnStop() {
+            UserIngestionService service = newService();
+            service.start();
+
+            IngestionStatusDto queued = service.submit(userDto("john"));
+            service.stop();
+
+            assertThat(queued.getStatus()).isEqualTo(0);
+            assertThat(queued.getState()).isEqualTo(IngestionState.QUEUED);
+            IngestionStatusDto saved = service.getStatus(queued.getTrackingId());
+            assertThat(saved.getState()).isEqualTo(IngestionState.SAVED);
+            assertThat(saved.getUserId()).isEqualTo(1);
+            verify(userRepository).saveAll(anyList());
+        }
+
+        @Test
+        @DisplayName("Каждый принятый во время остановки пользователь записывается")
+        void submit_RacingStop_AcceptedUsersSaved() throws Exception {
+            UserIngestionService service = newService();
+            service.start();
+            ExecutorService submitters = Executors.newFixedThreadPool(4);
+            List<Future<List<IngestionStatusDto>>> results = new ArrayList<>();
+            CountDownLatch started = new CountDownLatch(4);
+            for (int thread = 0; thread < 4; thread++) {
+                int prefix = thread;
+                results.add(submitters.submit(() -> {
+                    List<IngestionStatusDto> accepted = new ArrayList<>();
+                    started.countDown();
+                    for (int i = 0; i < 500; i++) {
+                        IngestionStatusDto status = service.submit(userDto("user" + prefix + "-" + i));
+                        if (status.getStatus() == 0) {
+                            accepted.add(status);
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+            started.await();
+            service.stop();
+
+            for (Future<List<IngestionStatusDto>> result : results) {
+                for (IngestionStatusDto accepted : result.get(5, TimeUnit.SECONDS)) {
+                    assertThat(service.getStatus(accepted.getTrackingId()).getState()).isEqualTo(IngestionState.SAVED);
+                }
+            }
+            submitters.shutdown();
+        }
+
+        @Test
+        @DisplayName("Неполные данные не попадают в очередь")
+        void submit_IncompleteUser() {
+            UserIngestionService service = newService();
+            service.start();
+            UserDto userDto = userDto("john");
+            userDto.setEmail(null);
+
+            IngestionStatusDto result = service.submit(userDto);
+            service.stop();
+
+            assertThat(result.getStatus()).isEqualTo(1);
+            assertThat(result.getTrackingId()).isNull();
+            assertThat(result.getError()).containsExactly("Не все данные были заполнены");
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("Переполненная очередь отклоняет запрос")
+        void submit_RejectsWhenFull() throws Exception {
+            userProperties.getWriteBehind().setCapacity(1);
+            CountDownLatch flushing = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                flushing.countDown();
+                release.await();
+                Consumer<TransactionStatus> action = invocation.getArgument(0);
+                action.accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+            UserIngestionService service = newService();
+            service.start();
+
+            service.submit(userDto("first"));
+            assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+            IngestionStatusDto second = service.submit(userDto("second"));
+            IngestionStatusDto third = service.submit(userDto("third"));
+            release.countDown();
+            service.stop();
+
+            assertThat(second.getState()).isEqualTo(IngestionState.QUEUED);
+            assertThat(third.getStatus()).isEqualTo(1);
+            assertThat(third.getState()).isEqualTo(IngestionState.REJECTED);
+            assertThat(service.getStatus(second.getTrackingId()).getState()).isEqualTo(IngestionState.SAVED);
+        }
+
+        @Test
+        @DisplayName("После остановки прием закрыт")
+        void submit_RejectsAfterStop() {
+            UserIngestionService service = newService();
+            service.start();
+            service.stop();
+
+            IngestionStatusDto result = service.submit(userDto("john"));
+
+            assertThat(result.getState()).isEqualTo(IngestionState.REJECTED);
+        }
+    }
+
+    @Nested
+    @DisplayName("flush")
+    class FlushTests {
+
+        @Test
+        @DisplayName("Если пачка упала, пользователи пишутся по одному")
+        void flush_FallsBackToSingleInserts() {
+            when(userRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate"));
+            when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+                User user = invocation.getArgument(0);
+                if (user.getNameUser().equals("bad")) {
+                    throw new DataIntegrityViolationException("duplicate email");
+                }
+                user.setId(nextId.getAndIncrement());
+                return user;
+            });
+            UserIngestionService service = newService();
+            service.start();
+
+            IngestionStatusDto good = service.submit(userDto("good"));
+            IngestionStatusDto bad = service.submit(userDto("bad"));
+            service.stop();
+
+            assertThat(service.getStatus(good.getTrackingId()).getState()).isEqualTo(IngestionState.SAVED);
+            IngestionStatusDto failed = service.getStatus(bad.getTrackingId());
+            assertThat(failed.getState()).isEqualTo(IngestionState.FAILED);
+            assertThat(failed.getStatus()).isEqualTo(1);
+            assertThat(failed.getError()).containsExactly("Данные пользователя конфликтуют с существующими");
+        }
+
+        @Test
+        @DisplayName("Пока база недоступна, пачка повторяется, а не отклоняется")
+        void flush_DatabaseUnavailable_RetriesBatch() {
+            userProperties.getWriteBehind().setRetryBackoff(Duration.ofMillis(10));
+            AtomicInteger attempts = new AtomicInteger();
+            doAnswer(invocation -> {
+                if (attempts.incrementAndGet() <= 3) {
+                    throw new CannotCreateTransactionException("connection refused");
+                }
+                Consumer<TransactionStatus> action = invocation.getArgument(0);
+                action.accept(null);
+                return null;
+            }).when(transactionTemplate).executeWithoutResult(any());
+            UserIngestionService service = newService();
+            service.start();
+
+            IngestionStatusDto queued = service.submit(userDto("john"));
+            service.stop();
+
+            assertThat(service.getStatus(queued.getTrackingId()).getState()).isEqualTo(IngestionState.SAVED);
+            verify(userRepository, never()).save(any(User.class));
+        }
+
+        @Test
+        @DisplayName("Неизвестный trackingId")
+        void getStatus_Unknown() {
+            IngestionStatusDto result = newService().getStatus("missing");
+
+            assertThat(result.getStatus()).isEqualTo(1);
+            assertThat(result.getError()).containsExactly("Заявки с таким trackingId не существует");
+        }
+    }
+
+    @Nested
+    @DisplayName("journal")
+    class JournalTests {
+
+        @TempDir
+        Path dir;
+
+        @Test
+        @DisplayName("Незаписанные пользователи из журнала дописываются при старте")
+        void start_ReplaysUnfinishedJournal() throws Exception {
+            Path journalPath = dir.resolve("ingestion.journal");
+            IngestionJournal previous = new IngestionJournal(journalPath, objectMapper, false);
+            previous.open();
+            previous.append(new PendingUser("t1", userDto("saved")));
+            previous.append(new PendingUser("t2", userDto("lost")));
+            previous.commit(List.of("t1"));
+            previous.close();
+            userProperties.getWriteBehind().setJournal(journalPath);
+
+            UserIngestionService service = newService();
+            service.start();
+            service.stop();
+
+            assertThat(service.getStatus("t2").getState()).isEqualTo(IngestionState.SAVED);
+            assertThat(service.getStatus("t1").getStatus()).isEqualTo(1);
+            verify(userRepository, times(1)).saveAll(anyList());
+            assertThat(Files.size(journalPath)).isZero();
+        }
+
+        @Test
+        @DisplayName("Пользователи, не записанные из-за недоступности базы, остаются в журнале")
+        void stop_DatabaseUnavailable_KeepsJournal() throws Exception {
+            Path journalPath = dir.resolve("ingestion.journal");
+            userProperties.getWriteBehind().setJournal(journalPath);
+            userProperties.getWriteBehind().setRetryBackoff(Duration.ofMillis(10));
+            userProperties.getWriteBehind().setShutdownTimeout(Duration.ofMillis(300));
+            doThrow(new CannotCreateTransactionException("connection refused"))
+                    .when(transactionTemplate).executeWithoutResult(any());
+            UserIngestionService service = newService();
+            service.start();
+
+            IngestionStatusDto queued = service.submit(userDto("john"));
+            service.stop();
+
+            assertThat(service.getStatus(queued.getTrackingId()).getState()).isEqualTo(IngestionState.QUEUED);
+            IngestionJournal journal = new IngestionJournal(journalPath, objectMapper, false);
+            List<PendingUser> unfinished = journal.open();
+            journal.close();
+            assertThat(unfinished).extracting(PendingUser::getTrackingId).containsExactly(queued.getTrackingId());
+        }
+
+        @Test
+        @DisplayName("Недописанная строка в конце журнала пропускается")
+        void open_SkipsTornTail() throws Exception {
+            Path journalPath = dir.resolve("ingestion.journal");
+            Files.writeString(journalPath, objectMapper.writeValueAsString(new PendingUser("t1", userDto("john")))
+                    + "\n{\"trackingId\":\"t2\",\"us");
+            IngestionJournal journal = new IngestionJournal(journalPath, objectMapper, false);
+
+            List<PendingUser> unfinished = journal.open();
+            journal.close();
+
+            assertThat(unfinished).extracting(PendingUser::getTrackingId).containsExactly("t1");
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.userServiceNew.limiter;
+
+import com.example.userServiceNew.config.UserProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimiterTest {
+
+    private final UserProperties userProperties = new UserProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    @Nested
+    @DisplayName("Градиентный лимит")
+    class GradientLimitTests {
+
+        @Test
+        @DisplayName("При ровной задержке и полной загрузке лимит растет")
+        void steadyLatency_LimitGrows() {
+            GradientLimit limit = new GradientLimit(userProperties.getLimiter());
+
+            for (int i = 0; i < 50; i++) {
+                limit.onSample(millis(10), limit.getLimit(), false);
+            }
+
+            assertThat(limit.getLimit()).isGreaterThan(20);
+        }
+
+        @Test
+        @DisplayName("Когда задержка растет, лимит снижается")
+        void risingLatency_LimitShrinks() {
+            GradientLimit limit = new GradientLimit(userProperties.getLimiter());
+            for (int i = 0; i < 20; i++) {
+                limit.onSample(millis(10), 1, false);
+            }
+
+            for (int i = 0; i < 20; i++) {
+                limit.onSample(millis(100), limit.getLimit(), false);
+            }
+
+            assertThat(limit.getLimit()).isLessThan(20);
+        }
+
+        @Test
+        @DisplayName("Неполная загрузка не растит лимит, перегрузка снижает его до min-limit")
+        void appLimitedAndDropped() {
+            userProperties.getLimiter().setMinLimit(15);
+            GradientLimit limit = new GradientLimit(userProperties.getLimiter());
+
+            for (int i = 0; i < 50; i++) {
+                limit.onSample(millis(10), 2, false);
+            }
+            assertThat(limit.getLimit()).isEqualTo(20);
+
+            limit.onSample(millis(10), 20, true);
+            assertThat(limit.getLimit()).isEqualTo(18);
+            for (int i = 0; i < 10; i++) {
+                limit.onSample(millis(10), 20, true);
+            }
+            assertThat(limit.getLimit()).isEqualTo(15);
+        }
+    }
+
+    @Nested
+    @DisplayName("Полосы чтения и записи")
+    class LaneTests {
+
+        @Test
+        @DisplayName("Запись занимает не больше write-share лимита, остальное остается чтению")
+        void writesCapped_ReadsKeepTheRest() {
+            userProperties.getLimiter().setInitialLimit(4);
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(userProperties, meterRegistry);
+
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.WRITE)).isNotNull();
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.WRITE)).isNotNull();
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.WRITE)).isNull();
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.READ)).isNotNull();
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.READ)).isNotNull();
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.READ)).isNull();
+
+            assertThat(meterRegistry.get(ConcurrencyLimiter.REJECTED).tag("lane", "write").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get(ConcurrencyLimiter.REJECTED).tag("lane", "read").counter().count()).isEqualTo(1);
+            assertThat(meterRegistry.get(ConcurrencyLimiter.INFLIGHT).tag("lane", "read").gauge().value()).isEqualTo(2);
+            assertThat(meterRegistry.get(ConcurrencyLimiter.LIMIT).gauge().value()).isEqualTo(4);
+        }
+
+        @Test
+        @DisplayName("Повторное освобождение разрешения не освобождает чужое место")
+        void release_Idempotent() {
+            userProperties.getLimiter().setInitialLimit(1);
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(userProperties, meterRegistry);
+            ConcurrencyLimiter.Permit permit = limiter.tryAcquire(ConcurrencyLimiter.Lane.READ);
+
+            permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.READ)).isNotNull();
+            permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+
+            assertThat(limiter.tryAcquire(ConcurrencyLimiter.Lane.READ)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("Фильтр")
+    class FilterTests {
+
+        private ConcurrencyLimitFilter filter(ConcurrencyLimiter limiter) {
+            return new ConcurrencyLimitFilter(limiter, new ObjectMapper(), Duration.ofSeconds(2));
+        }
+
+        @Test
+        @DisplayName("Сверх лимита запрос отклоняется с 503 и Retry-After, не доходя до контроллера")
+        void saturated_Rejects() throws Exception {
+            userProperties.getLimiter().setInitialLimit(1);
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(userProperties, meterRegistry);
+            limiter.tryAcquire(ConcurrencyLimiter.Lane.READ);
+            AtomicBoolean called = new AtomicBoolean();
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter(limiter).doFilter(new MockHttpServletRequest("GET", "/users/1"), response,
+                    (req, res) -> called.set(true));
+
+            assertThat(called).isFalse();
+            assertThat(response.getStatus()).isEqualTo(503);
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+            assertThat(response.getContentAsString()).contains("\"status\":1");
+        }
+
+        @Test
+        @DisplayName("Запрос освобождает место, а 503 от базы снижает лимит")
+        void downstream503_ShrinksLimit() throws Exception {
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter(userProperties, meterRegistry);
+            FilterChain unavailable = (req, res) -> ((HttpServletResponse) res).setStatus(503);
+
+            filter(limiter).doFilter(new MockHttpServletRequest("POST", "/users"), new MockHttpServletResponse(),
+                    unavailable);
+
+            assertThat(limiter.getLimit()).isEqualTo(18);
+            assertThat(meterRegistry.get(ConcurrencyLimiter.INFLIGHT).tag("lane", "write").gauge().value()).isZero();
+        }
+    }
+}
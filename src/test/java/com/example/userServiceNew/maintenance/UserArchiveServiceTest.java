@@ -0,0 +1,145 @@
+package com.example.userServiceNew.maintenance;
+
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserArchiveServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private ObjectProvider<UserPartitionMaintenance> partitionMaintenance;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final UserProperties userProperties = new UserProperties();
+
+    @BeforeEach
+    void setUp() {
+        userProperties.getArchive().setBatchSize(2);
+        userProperties.getArchive().setDirectory(dir);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+    }
+
+    private UserArchiveService newService() {
+        return new UserArchiveService(jdbcTemplate, transactionTemplate, userCache, userProperties, objectMapper,
+                partitionMaintenance);
+    }
+
+    private static UserDto userDto(int id) {
+        return new UserDto(id, "user" + id, "user" + id + "@example.com", 30,
+                LocalDateTime.of(2020, 1, 1, 0, 0), LocalDateTime.of(2020, 1, 1, 0, 0), 0L);
+    }
+
+    @Test
+    @DisplayName("В таблицу пачки переносятся, пока не придет неполная")
+    void archive_Table_MovesUntilShortBatch() {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any(), any()))
+                .thenReturn(List.of(1, 2), List.of(3));
+
+        int archived = newService().archive();
+
+        assertThat(archived).isEqualTo(3);
+        verify(jdbcTemplate, times(2)).queryForList(anyString(), eq(Integer.class), any(), any(), eq(2));
+        verify(userCache).invalidate(1);
+        verify(userCache).invalidate(2);
+        verify(userCache).invalidate(3);
+    }
+
+    @Test
+    @DisplayName("Выгрузка в файл пишет сжатый NDJSON")
+    @SuppressWarnings("unchecked")
+    void archive_File_WritesGzippedNdjson() throws Exception {
+        userProperties.getArchive().setTarget(UserProperties.ArchiveTarget.FILE);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any()))
+                .thenReturn(List.of(userDto(1), userDto(2)), List.of(userDto(3)));
+
+        int archived = newService().archive();
+
+        assertThat(archived).isEqualTo(3);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.toList();
+        }
+        assertThat(files).hasSize(1);
+        assertThat(files.get(0).getFileName().toString()).endsWith(".ndjson.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(files.get(0)));
+             MappingIterator<UserDto> users = objectMapper.readerFor(UserDto.class).readValues(in)) {
+            assertThat(users.readAll()).extracting(UserDto::getId).containsExactly(1, 2, 3);
+        }
+        verify(userCache).invalidate(3);
+    }
+
+    @Test
+    @DisplayName("Без старых пользователей файл не создается")
+    @SuppressWarnings("unchecked")
+    void archive_File_NothingToArchive() throws Exception {
+        userProperties.getArchive().setTarget(UserProperties.ArchiveTarget.FILE);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any(), any())).thenReturn(List.of());
+
+        assertThat(newService().archive()).isZero();
+        try (Stream<Path> list = Files.list(dir)) {
+            assertThat(list).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("При секционировании опустевшие секции удаляются")
+    void archive_DropsEmptyPartitions() {
+        UserPartitionMaintenance maintenance = mock(UserPartitionMaintenance.class);
+        doAnswer(invocation -> {
+            Consumer<UserPartitionMaintenance> consumer = invocation.getArgument(0);
+            consumer.accept(maintenance);
+            return null;
+        }).when(partitionMaintenance).ifAvailable(any());
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any(), any(), any())).thenReturn(List.of());
+
+        newService().archive();
+
+        verify(maintenance).dropEmptyPartitionsBefore(any(LocalDateTime.class));
+    }
+}
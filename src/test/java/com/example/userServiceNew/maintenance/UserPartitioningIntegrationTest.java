@@ -0,0 +1,155 @@
+package com.example.userServiceNew.maintenance;
+
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Профиль partitioning на реальном PostgreSQL: миграция db/partitioning, секции на месяцы вперед,
+ * уникальность email через users_email и выборка по диапазону create_at.
+ * Без Docker тесты пропускаются.
+ */
+@SpringBootTest(properties = "app.users.cache.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("partitioning")
+@Testcontainers(disabledWithoutDocker = true)
+public class UserPartitioningIntegrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserPartitionMaintenance partitionMaintenance;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Секции созданы на текущий месяц и months-ahead вперед, повторный вызов ничего не создает")
+    void partitionsCreatedAhead() {
+        Integer partitions = jdbcTemplate.queryForObject(
+                "select count(*) from pg_inherits where inhparent = 'users'::regclass", Integer.class);
+
+        // текущий месяц + 3 вперед + секция по умолчанию
+        assertThat(partitions).isGreaterThanOrEqualTo(5);
+        assertThat(partitionMaintenance.ensurePartitions()).isZero();
+    }
+
+    @Test
+    @DisplayName("Диапазон createdFrom/createdTo возвращает только пользователей из него")
+    void getUsersCreatedBetween() throws Exception {
+        LocalDateTime thisMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        saveUser("old@example.com", thisMonth.minusMonths(1).plusDays(3));
+        User recent = saveUser("recent@example.com", thisMonth.plusDays(1));
+
+        mockMvc.perform(get("/users")
+                        .param("createdFrom", thisMonth.toString())
+                        .param("createdTo", thisMonth.plusMonths(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].id").value(recent.getId()));
+    }
+
+    @Test
+    @DisplayName("Повторный email отклоняется и в разных секциях")
+    void duplicateEmailAcrossPartitions() {
+        LocalDateTime now = LocalDateTime.now();
+        saveUser("john.doe@example.com", now);
+
+        assertThatThrownBy(() -> saveUser("john.doe@example.com", now.minusMonths(2)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("После удаления пользователя его email снова свободен")
+    void emailReleasedOnDelete() {
+        User user = saveUser("john.doe@example.com", LocalDateTime.now());
+        userRepository.removeById(user.getId());
+
+        assertThat(saveUser("john.doe@example.com", LocalDateTime.now()).getId()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Строки из секции по умолчанию переезжают в секцию своего месяца, когда она создается")
+    void ensurePartitionsMovesRowsFromDefault() {
+        LocalDateTime thisMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime farAhead = thisMonth.plusMonths(8).plusDays(2);
+        User user = saveUser("future@example.com", farAhead);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from users_default", Integer.class)).isEqualTo(1);
+
+        Integer created = jdbcTemplate.queryForObject("select users_ensure_partitions(?, 9)", Integer.class,
+                thisMonth.toLocalDate());
+
+        assertThat(created).isPositive();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from users_default", Integer.class)).isZero();
+        String partition = String.format("users_p%1$tY%1$tm", farAhead);
+        assertThat(jdbcTemplate.queryForObject("select tableoid::regclass::text from users where id = ?", String.class,
+                user.getId())).isEqualTo(partition);
+        assertThatThrownBy(() -> saveUser("future@example.com", LocalDateTime.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(partitionMaintenance.ensurePartitions()).isZero();
+    }
+
+    @Test
+    @DisplayName("Секционирование уже существующей базы вне очереди сохраняет триггеры уведомлений users_changed")
+    void outOfOrderPartitioningKeepsNotifyTriggers() {
+        FluentConfiguration flyway = Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .schemas("late_partitioning")
+                .placeholders(Map.of("users_id_allocation_size", "50"));
+        flyway.locations("classpath:db/migration").load().migrate();
+        flyway.locations("classpath:db/migration", "classpath:db/partitioning").outOfOrder(true).load().migrate();
+
+        List<String> triggers = jdbcTemplate.queryForList("select tgname from pg_trigger "
+                + "where tgrelid = 'late_partitioning.users'::regclass and tgname like 'users_notify_%' order by tgname",
+                String.class);
+        assertThat(triggers).containsExactly("users_notify_delete", "users_notify_truncate", "users_notify_update");
+        assertThat(jdbcTemplate.queryForObject("select relkind::text from pg_class "
+                + "where oid = 'late_partitioning.users'::regclass", String.class)).isEqualTo("p");
+    }
+
+    private User saveUser(String email, LocalDateTime createAt) {
+        User user = new User();
+        user.setNameUser("John Doe");
+        user.setEmail(email);
+        user.setAge(30);
+        user.setCreateAt(createAt);
+        return userRepository.save(user);
+    }
+}
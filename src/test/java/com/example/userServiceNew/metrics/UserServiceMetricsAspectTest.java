@@ -0,0 +1,60 @@
+package com.example.userServiceNew.metrics;
+
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.coalescing.UserLookupCoalescer;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.repository.UserRepository;
+import com.example.userServiceNew.service.UserCRUDService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class UserServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserRepository userRepository;
+    private UserCRUDService userService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userRepository = mock(UserRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(
+                new UserCRUDService(userRepository, new UserProperties(), new NoOpUserCache(),
+                new DefaultListableBeanFactory().getBeanProvider(UserLookupCoalescer.class)));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new UserServiceMetricsAspect(meterRegistry));
+        userService = factory.getProxy();
+    }
+
+    @Test
+    @DisplayName("Should tag timer with error status for a not found result")
+    void getById_NotFound_RecordsStatusOne() {
+        when(userRepository.findDtoById(999)).thenReturn(Optional.empty());
+
+        userService.getById(999);
+
+        assertThat(meterRegistry.get(UserServiceMetricsAspect.TIMER_NAME)
+                .tags("method", "getById", "status", "1").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should tag timer with exception when the method throws")
+    void streamAll_Throws_RecordsException() {
+        when(userRepository.streamAllOrderById(anyInt())).thenThrow(new IllegalStateException("db down"));
+
+        assertThatThrownBy(() -> userService.streamAll(userDto -> { })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get(UserServiceMetricsAspect.TIMER_NAME)
+                .tags("method", "streamAll", "status", "exception").timer().count()).isEqualTo(1);
+    }
+}
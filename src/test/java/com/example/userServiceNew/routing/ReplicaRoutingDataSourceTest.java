@@ -0,0 +1,79 @@
+package com.example.userServiceNew.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final AtomicBoolean replicaHealthy = new AtomicBoolean(true);
+    private final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(
+            new SimpleDriverDataSource(), new SimpleDriverDataSource(), replicaHealthy::get);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Should route read-only transactions to the replica")
+    void readOnly_GoesToReplica() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.REPLICA);
+    }
+
+    @Test
+    @DisplayName("Should route writes and non-transactional work to the primary")
+    void readWrite_GoesToPrimary() {
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    @DisplayName("Should keep reads on the primary while it is forced")
+    void forcedPrimary_GoesToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Object key = ReplicaRoutingContext.callOnPrimary(dataSource::determineCurrentLookupKey);
+
+        assertThat(key).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+        assertThat(ReplicaRoutingContext.isPrimaryForced()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should carry forced primary over to tasks of an inheriting executor")
+    void inheritingExecutor_CarriesForcedPrimary() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Executor inheriting = ReplicaRoutingContext.inheriting(executor);
+
+            Boolean forced = ReplicaRoutingContext.callOnPrimary(() -> CompletableFuture
+                    .supplyAsync(ReplicaRoutingContext::isPrimaryForced, inheriting).join());
+            Boolean notForced = CompletableFuture.supplyAsync(ReplicaRoutingContext::isPrimaryForced, inheriting).join();
+
+            assertThat(forced).isTrue();
+            assertThat(notForced).isFalse();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica is unhealthy")
+    void unhealthyReplica_GoesToPrimary() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        replicaHealthy.set(false);
+
+        assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(ReplicaRoutingDataSource.PRIMARY);
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.userServiceNew.routing;
+
+import com.example.userServiceNew.dto.UserDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Маршрутизация на двух независимых PostgreSQL: "реплика" - отдельная база с той же схемой,
+ * поэтому по содержимому ответа видно, откуда он прочитан. Кэш выключен, чтобы каждое
+ * чтение шло в базу. Без Docker тесты пропускаются.
+ */
+@SpringBootTest(properties = {
+        "app.users.cache.enabled=false",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.health-check-interval=200ms"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class ReplicaRoutingIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("app.datasource.replica.jdbc-url", replica::getJdbcUrl);
+        registry.add("app.datasource.replica.username", replica::getUsername);
+        registry.add("app.datasource.replica.password", replica::getPassword);
+    }
+
+    @BeforeAll
+    static void migrateReplica() {
+        Flyway.configure()
+                .dataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword())
+                .load()
+                .migrate();
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() {
+        primaryJdbc = jdbc(primary);
+        replicaJdbc = jdbc(replica);
+        primaryJdbc.update("delete from users");
+        if (replica.isRunning()) {
+            replicaJdbc.update("delete from users");
+        }
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Чтение идет с реплики")
+    void reads_GoToReplica() throws Exception {
+        insertUser(primaryJdbc, 1, "on-primary");
+        insertUser(replicaJdbc, 1, "on-replica");
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].nameUser").value("on-replica"));
+        mockMvc.perform(get("/users/1"))
+                .andExpect(jsonPath("$.userDto.nameUser").value("on-replica"));
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Запись идет в primary и закрепляет чтение клиента за primary")
+    void writes_GoToPrimaryAndStick() throws Exception {
+        UserDto userDto = new UserDto();
+        userDto.setNameUser("created");
+        userDto.setEmail("created@example.com");
+        userDto.setAge(30);
+
+        Cookie sticky = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        assertThat(count(primaryJdbc)).isEqualTo(1);
+        assertThat(count(replicaJdbc)).isZero();
+        mockMvc.perform(get("/users").cookie(sticky))
+                .andExpect(jsonPath("$.users[0].nameUser").value("created"));
+        mockMvc.perform(get("/users"))
+                .andExpect(jsonPath("$.users").isEmpty());
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Пока реплика недоступна, чтение идет в primary")
+    void unavailableReplica_FallsBackToPrimary() throws Exception {
+        insertUser(primaryJdbc, 1, "on-primary");
+        replica.stop();
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        String name = null;
+        while (System.currentTimeMillis() < deadline && !"on-primary".equals(name)) {
+            Thread.sleep(200);
+            String body = mockMvc.perform(get("/users")).andReturn().getResponse().getContentAsString();
+            name = objectMapper.readTree(body).path("users").path(0).path("nameUser").asText(null);
+        }
+
+        assertThat(name).isEqualTo("on-primary");
+    }
+
+    private static JdbcTemplate jdbc(PostgreSQLContainer<?> container) {
+        return new JdbcTemplate(new DriverManagerDataSource(container.getJdbcUrl(),
+                container.getUsername(), container.getPassword()));
+    }
+
+    private static void insertUser(JdbcTemplate jdbc, int id, String name) {
+        jdbc.update("insert into users (id, name_user, email, age, create_at) values (?, ?, ?, 30, localtimestamp)",
+                id, name, name + "@example.com");
+    }
+
+    private static int count(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("select count(*) from users", Integer.class);
+    }
+}
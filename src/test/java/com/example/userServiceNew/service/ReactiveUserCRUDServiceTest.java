@@ -0,0 +1,151 @@
+package com.example.userServiceNew.service;
+
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.repository.ReactiveUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveUserCRUDServiceTest {
+
+    @Mock
+    private ReactiveUserRepository reactiveUserRepository;
+
+    @Spy
+    private UserProperties userProperties = new UserProperties();
+
+    @InjectMocks
+    private ReactiveUserCRUDService userService;
+
+    private UserDto userDto;
+
+    @BeforeEach
+    void setUp() {
+        userDto = new UserDto();
+        userDto.setId(1);
+        userDto.setNameUser("John Doe");
+        userDto.setEmail("john.doe@example.com");
+        userDto.setAge(30);
+        userDto.setCreateAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+    }
+
+    @Test
+    @DisplayName("Should return user when user exists")
+    void getById_UserExists_ReturnsUser() {
+        when(reactiveUserRepository.findById(1)).thenReturn(Mono.just(userDto));
+
+        StepVerifier.create(userService.getById(1))
+                .assertNext(result -> {
+                    assertThat(result.isOk()).isTrue();
+                    assertThat(result.getValue().getNameUser()).isEqualTo("John Doe");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should return not found when user is missing")
+    void getById_UserMissing_ReturnsNotFound() {
+        when(reactiveUserRepository.findById(999)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.getById(999))
+                .assertNext(result -> {
+                    assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND);
+                    assertThat(result.getErrors()).contains("Пользователя с таким id не существует");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should stream all users with configured fetch size")
+    void getAll_StreamsUsers() {
+        when(reactiveUserRepository.findAll(anyInt())).thenReturn(Flux.just(userDto, userDto));
+
+        StepVerifier.create(userService.getAll())
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(reactiveUserRepository, times(1)).findAll(userProperties.getStream().getFetchSize());
+    }
+
+    @Test
+    @DisplayName("Should not insert when data is incomplete")
+    void create_AgeNull_ReturnsError() {
+        userDto.setAge(null);
+
+        StepVerifier.create(userService.create(userDto))
+                .assertNext(result -> {
+                    assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+                    assertThat(result.getErrors()).contains("Не все данные были заполнены");
+                })
+                .verifyComplete();
+
+        verify(reactiveUserRepository, never()).insert(any());
+    }
+
+    @Test
+    @DisplayName("Should report conflict when version is stale")
+    void update_StaleVersion_ReturnsConflict() {
+        userDto.setVersion(2L);
+        when(reactiveUserRepository.updatePartially(1, userDto)).thenReturn(Mono.just(0L));
+        when(reactiveUserRepository.existsById(1)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(userService.update(1, userDto))
+                .assertNext(result -> {
+                    assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.CONFLICT);
+                    assertThat(result.getErrors()).contains("Пользователь был изменен другим запросом");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should return the inserted user with its id")
+    void create_Success_ReturnsCreatedUser() {
+        when(reactiveUserRepository.insert(userDto)).thenReturn(Mono.just(userDto));
+
+        StepVerifier.create(userService.create(userDto))
+                .assertNext(result -> {
+                    assertThat(result.isOk()).isTrue();
+                    assertThat(result.getValue().getId()).isEqualTo(1);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("Should report not found when nothing was updated and the version was not given")
+    void update_UserMissing_ReturnsNotFound() {
+        when(reactiveUserRepository.updatePartially(1, userDto)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(userService.update(1, userDto))
+                .assertNext(result -> assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND))
+                .verifyComplete();
+
+        verify(reactiveUserRepository, never()).existsById(any());
+    }
+
+    @Test
+    @DisplayName("Should report not found when nothing was deleted")
+    void delete_UserMissing_ReturnsNotFound() {
+        when(reactiveUserRepository.deleteById(1)).thenReturn(Mono.just(0L));
+
+        StepVerifier.create(userService.delete(1))
+                .assertNext(result -> assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.userServiceNew.service;
+
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.config.UserProperties;
+import com.example.userServiceNew.dto.BatchResponse;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.User;
+import com.example.userServiceNew.repository.UserRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UserBatchServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private UserProperties userProperties = new UserProperties();
+
+    @Spy
+    private UserCache userCache = new NoOpUserCache();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @InjectMocks
+    private UserBatchService userBatchService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            Consumer<TransactionStatus> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private static UserDto userDto(Integer id, String name) {
+        UserDto userDto = new UserDto();
+        userDto.setId(id);
+        userDto.setNameUser(name);
+        userDto.setEmail(name + "@example.com");
+        userDto.setAge(30);
+        return userDto;
+    }
+
+    @Test
+    @DisplayName("Should save valid users in chunks and report invalid ones")
+    void createAll_SplitsIntoChunks() {
+        userProperties.getBatch().setChunkSize(2);
+        UserDto invalid = userDto(null, "bad");
+        invalid.setEmail(null);
+
+        BatchResponse result = userBatchService.createAll(Arrays.asList(
+                userDto(null, "a"), userDto(null, "b"), invalid).iterator());
+
+        assertThat(result.getStatus()).isEqualTo(1);
+        assertThat(result.getResults()).extracting("status").containsExactly(0, 0, 1);
+        assertThat(result.getResults().get(2).getError()).containsExactly("email: Email не заполнен");
+        verify(userRepository, times(1)).saveAll(anyList());
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid users and repeated emails without touching the database")
+    @SuppressWarnings("unchecked")
+    void createAll_InvalidAndDuplicates_NotSaved() {
+        UserDto negativeAge = userDto(null, "young");
+        negativeAge.setAge(-1);
+        UserDto known = userDto(null, "known");
+        UserDto knownCached = userDto(7, "known");
+        when(userCache.emailOwner(anyString())).thenAnswer(invocation ->
+                knownCached.getEmail().equals(invocation.getArgument(0)) ? 7 : null);
+
+        BatchResponse result = userBatchService.createAll(List.of(
+                negativeAge, known, userDto(null, "twice"), userDto(null, "twice")).iterator());
+
+        assertThat(result.getResults()).extracting("status").containsExactly(1, 1, 0, 1);
+        assertThat(result.getResults().get(0).getError()).containsExactly("age: Возраст не может быть отрицательным");
+        assertThat(result.getResults().get(1).getError()).containsExactly("Пользователь с таким email уже существует");
+        assertThat(result.getResults().get(3).getError()).containsExactly("Пользователь с таким email уже существует");
+        verify(userRepository).saveAll(argThat(users -> ((List<User>) users).size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should retry a chunk rejected by a constraint item by item")
+    @SuppressWarnings("unchecked")
+    void createAll_ConstraintViolation_RetriesOneByOne() {
+        when(userRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.stream().anyMatch(user -> "taken@example.com".equals(user.getEmail()))) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            return users;
+        });
+
+        BatchResponse result = userBatchService.createAll(List.of(
+                userDto(null, "a"), userDto(null, "taken"), userDto(null, "b")).iterator());
+
+        assertThat(result.getResults()).extracting("status").containsExactly(0, 1, 0);
+        assertThat(result.getResults().get(1).getError()).containsExactly("Данные пользователя конфликтуют с существующими");
+        verify(userRepository, times(4)).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should not expose exception details when a chunk fails")
+    void updateAll_DatabaseError_GenericMessage() {
+        when(userRepository.findAllById(anyCollection())).thenThrow(new IllegalStateException("SQL: select * from users"));
+
+        BatchResponse result = userBatchService.updateAll(List.of(userDto(1, "a"), userDto(2, "b")).iterator());
+
+        assertThat(result.getResults()).extracting("status").containsExactly(1, 1);
+        assertThat(result.getResults()).allSatisfy(response ->
+                assertThat(response.getError()).containsExactly("Внутренняя ошибка сервера"));
+        verify(userRepository, times(1)).findAllById(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should update only users that exist")
+    void updateAll_MissingUser_ReportsError() {
+        User existing = new User();
+        existing.setId(1);
+        when(userRepository.findAllById(Set.of(1, 2))).thenReturn(List.of(existing));
+
+        BatchResponse result = userBatchService.updateAll(List.of(userDto(1, "a"), userDto(2, "b")).iterator());
+
+        assertThat(result.getResults()).extracting("status").containsExactly(0, 1);
+        assertThat(existing.getNameUser()).isEqualTo("a");
+    }
+
+    @Test
+    @DisplayName("Should change only the fields present in a partial item")
+    void updateAll_PartialItem_KeepsOtherFields() {
+        User existing = new User();
+        existing.setId(5);
+        existing.setNameUser("John");
+        existing.setEmail("john@example.com");
+        existing.setAge(30);
+        when(userRepository.findAllById(Set.of(5))).thenReturn(List.of(existing));
+        UserDto partial = new UserDto();
+        partial.setId(5);
+        partial.setAge(40);
+
+        BatchResponse result = userBatchService.updateAll(List.of(partial).iterator());
+
+        assertThat(result.getResults()).extracting("status").containsExactly(0);
+        assertThat(existing.getAge()).isEqualTo(40);
+        assertThat(existing.getNameUser()).isEqualTo("John");
+        assertThat(existing.getEmail()).isEqualTo("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should delete existing users with one batched statement")
+    void deleteAll_DeletesExistingInBatch() {
+        when(userRepository.findExistingIds(List.of(1, 2, 3))).thenReturn(List.of(1, 3));
+
+        BatchResponse result = userBatchService.deleteAll(List.of(1, 2, 3).iterator());
+
+        assertThat(result.getStatus()).isEqualTo(1);
+        assertThat(result.getResults()).extracting("status").containsExactly(0, 1, 0);
+        verify(userRepository, times(1)).deleteAllByIdInBatch(anyCollection());
+    }
+}
@@ -1,8 +1,13 @@
 package com.example.userServiceNew.service;
 
-import com.example.userServiceNew.dto.Response;
+import com.example.userServiceNew.cache.NoOpUserCache;
+import com.example.userServiceNew.cache.UserCache;
+import com.example.userServiceNew.coalescing.UserLookupCoalescer;
+import com.example.userServiceNew.config.UserProperties;
 import com.example.userServiceNew.dto.UserDto;
-import com.example.userServiceNew.dto.UserResponseDto;
+import com.example.userServiceNew.dto.UserPageDto;
+import com.example.userServiceNew.dto.UserVersion;
+import com.example.userServiceNew.dto.UserView;
 import com.example.userServiceNew.model.User;
 import com.example.userServiceNew.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,16 +17,23 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +42,15 @@ public class UserCRUDServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private UserProperties userProperties = new UserProperties();
+
+    @Spy
+    private UserCache userCache = new NoOpUserCache();
+
+    @Mock
+    private ObjectProvider<UserLookupCoalescer> lookupCoalescer;
+
     @InjectMocks
     private UserCRUDService userService;
 
@@ -63,69 +84,299 @@ public class UserCRUDServiceTest {
         @Test
         @DisplayName("Should return user when user exists")
         void getById_UserExists_ReturnsUser() {
-            when(userRepository.findById(1)).thenReturn(Optional.of(user));
+            when(userRepository.findDtoById(1)).thenReturn(Optional.of(userDto));
 
-            UserResponseDto result = userService.getById(1);
+            ServiceResult<UserDto> result = userService.getById(1);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(0);
-            assertThat(result.getError()).isNull();
-            assertThat(result.getUserDto()).isNotNull();
-            assertThat(result.getUserDto().getId()).isEqualTo(1);
-            assertThat(result.getUserDto().getNameUser()).isEqualTo("John Doe");
-            assertThat(result.getUserDto().getEmail()).isEqualTo("john.doe@example.com");
-            assertThat(result.getUserDto().getAge()).isEqualTo(30);
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.OK);
+            assertThat(result.getErrors()).isNull();
+            assertThat(result.getValue()).isNotNull();
+            assertThat(result.getValue().getId()).isEqualTo(1);
+            assertThat(result.getValue().getNameUser()).isEqualTo("John Doe");
+            assertThat(result.getValue().getEmail()).isEqualTo("john.doe@example.com");
+            assertThat(result.getValue().getAge()).isEqualTo(30);
+
+            verify(userRepository, times(1)).findDtoById(1);
+            verify(userRepository, never()).findById(any());
+        }
+
+        @Test
+        @DisplayName("Should propagate repository failures instead of hiding them in the response")
+        void getById_RepositoryFails_Throws() {
+            when(userRepository.findDtoById(999)).thenThrow(new DataAccessResourceFailureException("db down"));
+
+            assertThatThrownBy(() -> userService.getById(999))
+                    .isInstanceOf(DataAccessResourceFailureException.class);
 
-            verify(userRepository, times(1)).findById(1);
+            verify(userRepository, times(1)).findDtoById(999);
         }
 
         @Test
-        @DisplayName("Should return error response when user not found")
-        void getById_UserNotFound_ReturnsError() {
-            when(userRepository.findById(999)).thenThrow(new RuntimeException("User not found"));
+        @DisplayName("Should return error response when user does not exist")
+        void getById_UserMissing_ReturnsError() {
+            when(userRepository.findDtoById(999)).thenReturn(Optional.empty());
 
-            UserResponseDto result = userService.getById(999);
+            ServiceResult<UserDto> result = userService.getById(999);
 
-            assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(1);
-            assertThat(result.getUserDto()).isNull();
-            assertThat(result.getError()).isNotNull();
-            assertThat(result.getError().get(0)).contains("User not found");
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND);
+            assertThat(result.getValue()).isNull();
+            assertThat(result.getErrors()).contains("Пользователя с таким id не существует");
+        }
+
+        @Test
+        @DisplayName("Should load cache misses through the coalescer when it is enabled")
+        void getById_Coalescing_UsesCoalescer() {
+            UserLookupCoalescer coalescer = mock(UserLookupCoalescer.class);
+            when(lookupCoalescer.getIfAvailable()).thenReturn(coalescer);
+            when(coalescer.load(1, userCache)).thenReturn(userDto);
 
-            verify(userRepository, times(1)).findById(999);
+            ServiceResult<UserDto> result = userService.getById(1);
+
+            assertThat(result.getValue()).isSameAs(userDto);
+            verify(userRepository, never()).findDtoById(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("getByIds() method tests")
+    class GetByIdsTests {
+
+        @Test
+        @DisplayName("Should read cached users from cache and the rest with one IN query, in request order")
+        void getByIds_CachedAndMissing() {
+            UserDto cached = new UserDto();
+            cached.setId(2);
+            when(userCache.getAllPresent(any())).thenReturn(Map.of(2, cached));
+            when(userRepository.findDtosByIdIn(List.of(1, 3))).thenReturn(List.of(userDto));
+
+            ServiceResult<UserPageDto> result = userService.getByIds(List.of(2, 1, 2, 3));
+
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getValue().getUsers()).extracting(UserDto::getId).containsExactly(2, 1);
+            verify(userRepository, times(1)).findDtosByIdIn(List.of(1, 3));
+        }
+
+        @Test
+        @DisplayName("Should not query when every user is cached")
+        void getByIds_AllCached_NoQuery() {
+            when(userCache.getAllPresent(any())).thenReturn(Map.of(1, userDto));
+
+            ServiceResult<UserPageDto> result = userService.getByIds(List.of(1));
+
+            assertThat(result.getValue().getUsers()).containsExactly(userDto);
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("Should reject empty and oversized id lists")
+        void getByIds_InvalidSize() {
+            userProperties.getPage().setMaxLimit(2);
+
+            assertThat(userService.getByIds(List.of()).getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(userService.getByIds(List.of(1, 2, 3)).getErrors()).containsExactly("Нужно передать от 1 до 2 id");
+            verifyNoInteractions(userRepository);
         }
     }
 
 
     @Test
-    @DisplayName("Should return all users when users exist")
-    void getAll_UsersExist_ReturnsAllUsers() {
-        User user2 = new User();
-        user2.setId(2);
-        user2.setNameUser("Jane Smith");
-        user2.setEmail("jane.smith@example.com");
-        user2.setAge(25);
-        user2.setCreateAt(fixedDateTime);
+    @DisplayName("Should return only the first page with a cursor instead of the whole table")
+    void getAll_UsersExist_ReturnsFirstPage() {
+        userProperties.getPage().setDefaultLimit(1);
+        UserDto userDto2 = new UserDto(2, "Jane Smith", "jane.smith@example.com", 25, fixedDateTime, fixedDateTime, 0L);
+        when(userRepository.findDtosAfter(0, PageRequest.of(0, 2))).thenReturn(Arrays.asList(userDto, userDto2));
 
-        List<User> users = Arrays.asList(user, user2);
-        when(userRepository.findAll()).thenReturn(users);
+        UserPageDto result = userService.getAll();
 
-        Collection<UserResponseDto> result = userService.getAll();
+        assertThat(result.getStatus()).isEqualTo(0);
+        assertThat(result.getError()).isNull();
+        assertThat(result.getUsers()).extracting(UserDto::getNameUser).containsExactly("John Doe");
+        assertThat(result.getNextCursor()).isEqualTo(1);
+        verify(userRepository, never()).findAllDtos();
+        verify(userRepository, never()).findAll();
+    }
 
-        assertThat(result).isNotNull();
-        assertThat(result).hasSize(2);
+    @Nested
+    @DisplayName("getVersion() method tests")
+    class GetVersionTests {
 
-        List<UserResponseDto> resultList = result.stream().toList();
+        @Test
+        @DisplayName("Should take version from cache without querying")
+        void getVersion_Cached_NoQuery() {
+            userDto.setVersion(3L);
+            when(userCache.getIfPresent(1)).thenReturn(userDto);
+
+            Optional<UserVersion> result = userService.getVersion(1);
+
+            assertThat(result).contains(new UserVersion(1, 3L, userDto.getUpdateAt()));
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("Should read only the version on cache miss")
+        void getVersion_NotCached_NarrowQuery() {
+            UserVersion version = new UserVersion(1, 2L, fixedDateTime);
+            when(userRepository.findVersionById(1)).thenReturn(Optional.of(version));
+
+            assertThat(userService.getVersion(1)).contains(version);
+            verify(userRepository, never()).findDtoById(any());
+        }
+
+        @Test
+        @DisplayName("Should return empty on repository error")
+        void getVersion_Error_Empty() {
+            when(userRepository.findVersionById(1)).thenThrow(new RuntimeException("db down"));
+
+            assertThat(userService.getVersion(1)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("getByEmail() and search() method tests")
+    class LookupTests {
+
+        private final SpelAwareProxyProjectionFactory projectionFactory = new SpelAwareProxyProjectionFactory();
 
-        assertThat(resultList.get(0).getStatus()).isEqualTo(0);
-        assertThat(resultList.get(0).getUserDto().getId()).isEqualTo(1);
-        assertThat(resultList.get(0).getUserDto().getNameUser()).isEqualTo("John Doe");
+        @Test
+        @DisplayName("Should find user by email through projection")
+        void getByEmail_UserExists_ReturnsUser() {
+            when(userRepository.findViewByEmail("john.doe@example.com"))
+                    .thenReturn(Optional.of(projectionFactory.createProjection(UserView.class, user)));
+
+            ServiceResult<UserDto> result = userService.getByEmail("john.doe@example.com");
+
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getValue().getId()).isEqualTo(1);
+            assertThat(result.getValue().getNameUser()).isEqualTo("John Doe");
+            verify(userRepository, never()).findAll();
+        }
+
+        @Test
+        @DisplayName("Should return error when email is unknown")
+        void getByEmail_UserMissing_ReturnsError() {
+            when(userRepository.findViewByEmail("nobody@example.com")).thenReturn(Optional.empty());
+
+            ServiceResult<UserDto> result = userService.getByEmail("nobody@example.com");
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND);
+            assertThat(result.getErrors()).contains("Пользователя с таким email не существует");
+        }
+
+        @Test
+        @DisplayName("Should search by name prefix with open age bounds")
+        void search_OpenAgeBounds_UsesFullRange() {
+            when(userRepository.findByNameUserStartingWithAndAgeBetweenOrderByNameUserAsc(
+                    "Jo", 0, Integer.MAX_VALUE, PageRequest.of(0, 50)))
+                    .thenReturn(List.of(projectionFactory.createProjection(UserView.class, user)));
 
-        assertThat(resultList.get(1).getStatus()).isEqualTo(0);
-        assertThat(resultList.get(1).getUserDto().getId()).isEqualTo(2);
-        assertThat(resultList.get(1).getUserDto().getNameUser()).isEqualTo("Jane Smith");
+            UserPageDto result = userService.search("Jo", null, null, null);
 
-        verify(userRepository, times(1)).findAll();
+            assertThat(result.getStatus()).isEqualTo(0);
+            assertThat(result.getUsers()).extracting(UserDto::getEmail).containsExactly("john.doe@example.com");
+            assertThat(result.getNextCursor()).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("getPage() method tests")
+    class GetPageTests {
+
+        @Test
+        @DisplayName("Should return next cursor when more users exist")
+        void getPage_MoreUsers_ReturnsNextCursor() {
+            UserDto userDto2 = new UserDto();
+            userDto2.setId(2);
+            when(userRepository.findDtosAfter(0, PageRequest.of(0, 2)))
+                    .thenReturn(Arrays.asList(userDto, userDto2));
+
+            UserPageDto result = userService.getPage(null, 1);
+
+            assertThat(result.getStatus()).isEqualTo(0);
+            assertThat(result.getUsers()).hasSize(1);
+            assertThat(result.getUsers().get(0).getId()).isEqualTo(1);
+            assertThat(result.getNextCursor()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Should return no cursor on the last page")
+        void getPage_LastPage_ReturnsNullCursor() {
+            when(userRepository.findDtosAfter(0, PageRequest.of(0, 11)))
+                    .thenReturn(List.of(userDto));
+
+            UserPageDto result = userService.getPage(0, 10);
+
+            assertThat(result.getStatus()).isEqualTo(0);
+            assertThat(result.getUsers()).hasSize(1);
+            assertThat(result.getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should clamp limit to configured maximum")
+        void getPage_LimitTooLarge_ClampsToMax() {
+            userProperties.getPage().setMaxLimit(100);
+            when(userRepository.findDtosAfter(eq(5), any()))
+                    .thenReturn(List.of());
+
+            userService.getPage(5, 1_000_000);
+
+            verify(userRepository, times(1)).findDtosAfter(5, PageRequest.of(0, 101));
+        }
+    }
+
+    @Nested
+    @DisplayName("isEmailTaken() method tests")
+    class EmailTakenTests {
+
+        @Test
+        @DisplayName("Should report email of another cached user without querying")
+        void isEmailTaken_OtherUser() {
+            when(userCache.emailOwner("john.doe@example.com")).thenReturn(1);
+
+            assertThat(userService.isEmailTaken(null, "john.doe@example.com")).isTrue();
+            assertThat(userService.isEmailTaken(2, "john.doe@example.com")).isTrue();
+            assertThat(userService.isEmailTaken(1, "john.doe@example.com")).isFalse();
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("Should not report unknown or missing email")
+        void isEmailTaken_Unknown() {
+            assertThat(userService.isEmailTaken(null, "jane.doe@example.com")).isFalse();
+            assertThat(userService.isEmailTaken(1, null)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("getCreatedBetween() method tests")
+    class GetCreatedBetweenTests {
+
+        @Test
+        @DisplayName("Should query the half-open create_at range with keyset cursor")
+        void getCreatedBetween_ReturnsPage() {
+            LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+            LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+            when(userRepository.findDtosCreatedBetween(from, to, 0, PageRequest.of(0, 51)))
+                    .thenReturn(List.of(userDto));
+
+            ServiceResult<UserPageDto> result = userService.getCreatedBetween(from, to, null, null);
+
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getValue().getUsers()).containsExactly(userDto);
+            assertThat(result.getValue().getNextCursor()).isNull();
+        }
+
+        @Test
+        @DisplayName("Should reject empty range without querying")
+        void getCreatedBetween_EmptyRange_ReturnsError() {
+            LocalDateTime from = LocalDateTime.of(2024, 2, 1, 0, 0);
+
+            ServiceResult<UserPageDto> result = userService.getCreatedBetween(from, from, null, 10);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(result.getErrors()).containsExactly("createdFrom должен быть раньше createdTo");
+            verifyNoInteractions(userRepository);
+        }
     }
 
     @Nested
@@ -137,12 +388,12 @@ public class UserCRUDServiceTest {
         void create_ValidData_ReturnsSuccess() {
             when(userRepository.save(any(User.class))).thenReturn(user);
 
-            Response result = userService.create(userDto);
+            ServiceResult<UserDto> result = userService.create(userDto);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(0);
-            assertThat(result.getMessage()).isEqualTo("Пользователь сохранен");
-            assertThat(result.getError()).isNull();
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getValue().getId()).isEqualTo(1);
+            assertThat(result.getErrors()).isNull();
 
             verify(userRepository, times(1)).save(any(User.class));
         }
@@ -152,12 +403,11 @@ public class UserCRUDServiceTest {
         void create_NameNull_ReturnsError() {
             userDto.setNameUser(null);
 
-            Response result = userService.create(userDto);
+            ServiceResult<UserDto> result = userService.create(userDto);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(1);
-            assertThat(result.getMessage()).isEqualTo("Произошла ошибка при попытке сохранения пользователя");
-            assertThat(result.getError()).contains("Не все данные были заполнены");
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(result.getErrors()).contains("Не все данные были заполнены");
 
             verify(userRepository, never()).save(any(User.class));
         }
@@ -167,11 +417,11 @@ public class UserCRUDServiceTest {
         void create_EmailNull_ReturnsError() {
             userDto.setEmail(null);
 
-            Response result = userService.create(userDto);
+            ServiceResult<UserDto> result = userService.create(userDto);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(1);
-            assertThat(result.getError()).contains("Не все данные были заполнены");
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(result.getErrors()).contains("Не все данные были заполнены");
 
             verify(userRepository, never()).save(any(User.class));
         }
@@ -181,30 +431,73 @@ public class UserCRUDServiceTest {
         void create_AgeNull_ReturnsError() {
             userDto.setAge(null);
 
-            Response result = userService.create(userDto);
+            ServiceResult<UserDto> result = userService.create(userDto);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(1);
-            assertThat(result.getError()).contains("Не все данные были заполнены");
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.INVALID);
+            assertThat(result.getErrors()).contains("Не все данные были заполнены");
 
             verify(userRepository, never()).save(any(User.class));
         }
+
+        @Test
+        @DisplayName("Should return conflict when email belongs to a known user")
+        void create_EmailTaken_ReturnsConflict() {
+            when(userCache.emailOwner("john.doe@example.com")).thenReturn(7);
+
+            ServiceResult<UserDto> result = userService.create(userDto);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.CONFLICT);
+            assertThat(result.getErrors()).containsExactly("Пользователь с таким email уже существует");
+            verifyNoInteractions(userRepository);
+        }
     }
 
 
-    @Test
-    @DisplayName("Should update user when valid data provided")
-    void update_ValidData_ReturnsSuccess() {
-        when(userRepository.save(any(User.class))).thenReturn(user);
+    @Nested
+    @DisplayName("update() method tests")
+    class UpdateTests {
 
-        Response result = userService.update(1, userDto);
+        @Test
+        @DisplayName("Should update user when valid data provided")
+        void update_ValidData_ReturnsSuccess() {
+            when(userRepository.updatePartially(1, userDto)).thenReturn(1);
 
-        assertThat(result).isNotNull();
-        assertThat(result.getStatus()).isEqualTo(0);
-        assertThat(result.getMessage()).isEqualTo("Пользователь обновлен");
-        assertThat(result.getError()).isNull();
+            ServiceResult<Void> result = userService.update(1, userDto);
 
-        verify(userRepository, times(1)).save(any(User.class));
+            assertThat(result).isNotNull();
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getErrors()).isNull();
+
+            verify(userRepository, times(1)).updatePartially(1, userDto);
+            verify(userRepository, never()).save(any(User.class));
+            verify(userCache, times(1)).invalidate(1);
+        }
+
+        @Test
+        @DisplayName("Should return error when user not found")
+        void update_UserNotFound_ReturnsError() {
+            when(userRepository.updatePartially(999, userDto)).thenReturn(0);
+
+            ServiceResult<Void> result = userService.update(999, userDto);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND);
+            assertThat(result.getErrors()).contains("Пользователя с таким id не существует");
+            verify(userRepository, never()).existsById(any());
+        }
+
+        @Test
+        @DisplayName("Should return conflict when version is stale")
+        void update_StaleVersion_ReturnsConflict() {
+            userDto.setVersion(3L);
+            when(userRepository.updatePartially(1, userDto)).thenReturn(0);
+            when(userRepository.existsById(1)).thenReturn(true);
+
+            ServiceResult<Void> result = userService.update(1, userDto);
+
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.CONFLICT);
+            assertThat(result.getErrors()).contains("Пользователь был изменен другим запросом");
+        }
     }
 
     @Nested
@@ -214,34 +507,32 @@ public class UserCRUDServiceTest {
         @Test
         @DisplayName("Should delete user when user exists")
         void delete_UserExists_ReturnsSuccess() {
-            when(userRepository.findById(1)).thenReturn(Optional.of(user));
-            doNothing().when(userRepository).deleteById(1);
+            when(userRepository.removeById(1)).thenReturn(1);
 
-            Response result = userService.delete(1);
+            ServiceResult<Void> result = userService.delete(1);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(0);
-            assertThat(result.getMessage()).isEqualTo("Пользователь удален");
-            assertThat(result.getError()).isNull();
+            assertThat(result.isOk()).isTrue();
+            assertThat(result.getErrors()).isNull();
 
-            verify(userRepository, times(1)).findById(1);
-            verify(userRepository, times(1)).deleteById(1);
+            verify(userRepository, times(1)).removeById(1);
+            verify(userRepository, never()).findById(any());
+            verify(userCache, times(1)).invalidate(1);
         }
 
         @Test
         @DisplayName("Should return error when user not found")
         void delete_UserNotFound_ReturnsError() {
-            when(userRepository.findById(999)).thenReturn(Optional.empty());
+            when(userRepository.removeById(999)).thenReturn(0);
 
-            Response result = userService.delete(999);
+            ServiceResult<Void> result = userService.delete(999);
 
             assertThat(result).isNotNull();
-            assertThat(result.getStatus()).isEqualTo(1);
-            assertThat(result.getMessage()).isEqualTo("Удаление пользователя не возможно");
-            assertThat(result.getError()).contains("Пользователя с таким id не существует");
+            assertThat(result.getOutcome()).isEqualTo(ServiceResult.Outcome.NOT_FOUND);
+            assertThat(result.getErrors()).contains("Пользователя с таким id не существует");
 
-            verify(userRepository, times(1)).findById(999);
-            verify(userRepository, never()).deleteById(any());
+            verify(userRepository, times(1)).removeById(999);
+            verify(userCache, never()).invalidate(any());
         }
     }
 
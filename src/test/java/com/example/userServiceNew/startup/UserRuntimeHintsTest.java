@@ -0,0 +1,31 @@
+package com.example.userServiceNew.startup;
+
+import com.example.userServiceNew.dto.CopyProgressDto;
+import com.example.userServiceNew.dto.UserDto;
+import com.example.userServiceNew.model.UserIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    @DisplayName("DTO, генератор id и миграции доступны в native image")
+    void registerHints() throws Exception {
+        new UserRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(UserDto.class.getMethod("getEmail"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(CopyProgressDto.class.getMethod("getRows"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(UserIdGenerator.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/migration/V1__create_users.sql")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.resource().forResource("db/partitioning/V5_1__partition_users_by_month.sql"))
+                .accepts(hints);
+    }
+}
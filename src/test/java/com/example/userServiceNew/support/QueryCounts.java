@@ -0,0 +1,47 @@
+package com.example.userServiceNew.support;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки числа SQL-операторов для тестов с {@link QueryCountTestConfig}.
+ * Счетчики привязаны к потоку, поэтому считаются только операторы текущего теста.
+ */
+public final class QueryCounts {
+
+    static final String DATA_SOURCE_NAME = "users";
+
+    private QueryCounts() {
+    }
+
+    public static void reset() {
+        QueryCountHolder.clear();
+    }
+
+    public static void assertSelectCount(int expected) {
+        QueryCount count = current();
+        assertEquals(expected, count.getSelect(), () -> "Ожидалось SELECT: " + expected + ", выполнено: " + describe(count));
+    }
+
+    public static void assertStatementsAtMost(int max) {
+        QueryCount count = current();
+        assertTrue(count.getTotal() <= max, () -> "Ожидалось не больше " + max + " операторов, выполнено: " + describe(count));
+    }
+
+    public static void assertNoStatements() {
+        assertStatementsAtMost(0);
+    }
+
+    private static QueryCount current() {
+        QueryCount count = QueryCountHolder.get(DATA_SOURCE_NAME);
+        return count != null ? count : new QueryCount();
+    }
+
+    private static String describe(QueryCount count) {
+        return "select=" + count.getSelect() + ", insert=" + count.getInsert() + ", update=" + count.getUpdate()
+                + ", delete=" + count.getDelete() + ", other=" + count.getOther();
+    }
+}